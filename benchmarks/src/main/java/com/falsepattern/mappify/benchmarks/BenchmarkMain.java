@@ -0,0 +1,16 @@
+package com.falsepattern.mappify.benchmarks;
+
+import lombok.val;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+public class BenchmarkMain {
+    public static void main(String[] args) throws Exception {
+        val options = new OptionsBuilder().parent(new CommandLineOptions(args))
+                                          .addProfiler(GCProfiler.class)
+                                          .build();
+        new Runner(options).run();
+    }
+}
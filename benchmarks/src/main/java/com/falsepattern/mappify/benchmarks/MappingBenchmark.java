@@ -0,0 +1,65 @@
+package com.falsepattern.mappify.benchmarks;
+
+import com.falsepattern.mappify.mapping.MappingSet;
+import com.falsepattern.mappify.mapping.Util;
+import lombok.val;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@Fork(1)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class MappingBenchmark {
+    @State(Scope.Benchmark)
+    public static class Loaded {
+        public MappingSet mappings;
+        public List<String> signatures;
+
+        @Setup
+        public void setup(Workspace workspace) throws IOException {
+            mappings = Util.parseClasses(workspace.mapfile, null);
+            signatures = new ArrayList<>();
+            for (val clazz: mappings.getClasses()) {
+                for (val field: clazz.fields) {
+                    signatures.add(field.signature);
+                }
+                for (val method: clazz.methods) {
+                    signatures.add(method.signature);
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public MappingSet parseClasses(Workspace workspace) throws IOException {
+        return Util.parseClasses(workspace.mapfile, null);
+    }
+
+    @Benchmark
+    public void serializeClasses(Loaded loaded) throws IOException {
+        Util.serializeClasses(loaded.mappings, new NullOutputStream());
+    }
+
+    @Benchmark
+    public void mapSignature(Loaded loaded, Blackhole blackhole) {
+        for (val signature: loaded.signatures) {
+            blackhole.consume(Util.mapSignature(loaded.mappings, signature));
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.falsepattern.mappify.benchmarks;
+
+import java.io.OutputStream;
+
+public class NullOutputStream extends OutputStream {
+    @Override
+    public void write(int b) {
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+    }
+}
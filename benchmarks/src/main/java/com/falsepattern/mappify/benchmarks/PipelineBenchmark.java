@@ -0,0 +1,32 @@
+package com.falsepattern.mappify.benchmarks;
+
+import com.falsepattern.mappify.Main;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@Fork(1)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class PipelineBenchmark {
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 5)
+    @Measurement(iterations = 20)
+    public void dump(Workspace workspace) {
+        Main.main(new String[]{"dump", workspace.jar.toString(), workspace.output.toString(), workspace.threadsOption()});
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @Warmup(iterations = 3, time = 5)
+    @Measurement(iterations = 5, time = 5)
+    public void convert(Workspace workspace) {
+        Main.main(new String[]{"convert", workspace.jar.toString(), workspace.output.toString(), workspace.mapfile.toString(), workspace.threadsOption()});
+    }
+}
@@ -0,0 +1,62 @@
+package com.falsepattern.mappify.benchmarks;
+
+import com.falsepattern.mappify.PoolStringManager;
+import lombok.val;
+import org.apache.bcel.classfile.ClassParser;
+import org.apache.bcel.classfile.Constant;
+import org.apache.bcel.classfile.ConstantPool;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+@Fork(1)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class PoolStringManagerBenchmark {
+    @Param({"50"})
+    public int membersPerClass;
+    @Param({"100"})
+    public int additions;
+
+    private ConstantPool pool;
+    private String[] names;
+    private String[] signatures;
+
+    @Setup
+    public void setup() throws IOException {
+        val bytes = new SyntheticJar(2, membersPerClass, 1, 0, 0).generateClass(0);
+        pool = new ClassParser(new ByteArrayInputStream(bytes), "a.class").parse().getConstantPool();
+        names = new String[additions];
+        signatures = new String[additions];
+        for (int i = 0; i < additions; i++) {
+            names[i] = "method_" + i;
+            signatures[i] = "(Lbench/Class_" + i + ";I)I";
+        }
+    }
+
+    @Benchmark
+    public Constant[] addNamesAndTypes() {
+        val copy = pool.copy();
+        val manager = new PoolStringManager(copy);
+        for (int i = 0; i < additions; i++) {
+            manager.getNAT(names[i], signatures[i]);
+        }
+        manager.finish();
+        return copy.getConstantPool();
+    }
+}
@@ -0,0 +1,97 @@
+package com.falsepattern.mappify.benchmarks;
+
+import lombok.Cleanup;
+import lombok.RequiredArgsConstructor;
+import lombok.val;
+import org.apache.bcel.Const;
+import org.apache.bcel.generic.ClassGen;
+import org.apache.bcel.generic.FieldGen;
+import org.apache.bcel.generic.InstructionConst;
+import org.apache.bcel.generic.InstructionFactory;
+import org.apache.bcel.generic.InstructionList;
+import org.apache.bcel.generic.MethodGen;
+import org.apache.bcel.generic.ObjectType;
+import org.apache.bcel.generic.Type;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+@RequiredArgsConstructor
+public class SyntheticJar {
+    private static final String PACKAGE = "bench/";
+
+    public final int classCount;
+    public final int membersPerClass;
+    public final int hierarchyDepth;
+    public final int resourceCount;
+    public final int resourceSize;
+
+    public void write(Path file) throws IOException {
+        @Cleanup val output = new ZipOutputStream(new BufferedOutputStream(Files.newOutputStream(file)));
+        for (int i = 0; i < classCount; i++) {
+            output.putNextEntry(new ZipEntry(className(i) + ".class"));
+            output.write(generateClass(i));
+            output.closeEntry();
+        }
+        val random = new Random(classCount);
+        val resource = new byte[resourceSize];
+        for (int i = 0; i < resourceCount; i++) {
+            random.nextBytes(resource);
+            output.putNextEntry(new ZipEntry("assets/resource_" + i + ".bin"));
+            output.write(resource);
+            output.closeEntry();
+        }
+    }
+
+    public byte[] generateClass(int index) {
+        val name = className(index).replace('/', '.');
+        val superName = hierarchyDepth > 1 && index % hierarchyDepth != 0 ? className(index - 1).replace('/', '.') : "java.lang.Object";
+        val other = new ObjectType(className((index + 1) % classCount).replace('/', '.'));
+        val clazz = new ClassGen(name, superName, "<generated>", Const.ACC_PUBLIC | Const.ACC_SUPER, new String[0]);
+        val pool = clazz.getConstantPool();
+        val factory = new InstructionFactory(clazz);
+        clazz.addEmptyConstructor(Const.ACC_PUBLIC);
+        for (int j = 0; j < membersPerClass; j++) {
+            clazz.addField(new FieldGen(Const.ACC_PUBLIC, j % 2 == 0 ? Type.INT : other, memberName(j), pool).getField());
+        }
+        for (int j = 0; j < membersPerClass; j++) {
+            val code = new InstructionList();
+            code.append(InstructionConst.ALOAD_0);
+            code.append(factory.createGetField(name, memberName(0), Type.INT));
+            code.append(InstructionConst.ILOAD_2);
+            code.append(InstructionConst.IADD);
+            if (j > 0) {
+                code.append(InstructionConst.ALOAD_0);
+                code.append(InstructionConst.ALOAD_1);
+                code.append(InstructionConst.ILOAD_2);
+                code.append(factory.createInvoke(name, memberName(j - 1), Type.INT, new Type[]{other, Type.INT}, Const.INVOKEVIRTUAL));
+                code.append(InstructionConst.IADD);
+            }
+            code.append(InstructionConst.IRETURN);
+            val method = new MethodGen(Const.ACC_PUBLIC, Type.INT, new Type[]{other, Type.INT}, new String[]{"o", "x"}, memberName(j), name, code, pool);
+            method.setMaxStack();
+            method.setMaxLocals();
+            clazz.addMethod(method.getMethod());
+            code.dispose();
+        }
+        return clazz.getJavaClass().getBytes();
+    }
+
+    private static String className(int index) {
+        return PACKAGE + memberName(index);
+    }
+
+    private static String memberName(int index) {
+        val name = new StringBuilder();
+        do {
+            name.append((char) ('a' + index % 26));
+            index = index / 26 - 1;
+        } while (index >= 0);
+        return name.reverse().toString();
+    }
+}
@@ -0,0 +1,58 @@
+package com.falsepattern.mappify.benchmarks;
+
+import com.falsepattern.mappify.Main;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+@State(Scope.Benchmark)
+public class Workspace {
+    @Param({"100", "1000"})
+    public int classCount;
+    @Param({"10"})
+    public int membersPerClass;
+    @Param({"4"})
+    public int hierarchyDepth;
+    @Param({"100"})
+    public int resourceCount;
+    @Param({"4096"})
+    public int resourceSize;
+    @Param({"1", "4"})
+    public int threads;
+
+    public Path directory;
+    public Path jar;
+    public Path mapfile;
+    public Path output;
+
+    @Setup
+    public void setup() throws IOException {
+        System.setOut(new PrintStream(new NullOutputStream()));
+        directory = Files.createTempDirectory("mappify-bench");
+        jar = directory.resolve("input.jar");
+        mapfile = directory.resolve("input.map");
+        output = directory.resolve("output.jar");
+        new SyntheticJar(classCount, membersPerClass, hierarchyDepth, resourceCount, resourceSize).write(jar);
+        Main.main(new String[]{"dump", jar.toString(), mapfile.toString(), threadsOption()});
+    }
+
+    public String threadsOption() {
+        return "--threads=" + threads;
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach((file) -> file.toFile().delete());
+        }
+    }
+}
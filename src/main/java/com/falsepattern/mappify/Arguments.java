@@ -0,0 +1,62 @@
+package com.falsepattern.mappify;
+
+import lombok.val;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class Arguments {
+    public final List<String> positional = new ArrayList<>();
+    private final Map<String, String> options = new HashMap<>();
+
+    public static Arguments parse(String[] args) {
+        val result = new Arguments();
+        for (val arg: args) {
+            if (arg.startsWith("--")) {
+                val i = arg.indexOf('=');
+                if (i < 0) {
+                    result.options.put(arg.substring(2), "");
+                } else {
+                    result.options.put(arg.substring(2, i), arg.substring(i + 1));
+                }
+            } else {
+                result.positional.add(arg);
+            }
+        }
+        return result;
+    }
+
+    public String get(int index) {
+        return positional.get(index);
+    }
+
+    public int size() {
+        return positional.size();
+    }
+
+    public boolean hasOption(String name) {
+        return options.containsKey(name);
+    }
+
+    public String getOption(String name, String defaultValue) {
+        return options.getOrDefault(name, defaultValue);
+    }
+
+    public int getIntOption(String name, int defaultValue) {
+        val value = options.get(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Option --" + name + " expects a number, got: " + value);
+        }
+    }
+
+    public int getThreads() {
+        return Math.max(1, getIntOption("threads", Runtime.getRuntime().availableProcessors()));
+    }
+}
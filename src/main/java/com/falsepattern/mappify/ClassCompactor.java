@@ -0,0 +1,536 @@
+package com.falsepattern.mappify;
+
+import lombok.val;
+import org.apache.bcel.Const;
+import org.apache.bcel.classfile.ClassFormatException;
+
+import java.util.Arrays;
+
+public class ClassCompactor {
+    private final byte[] data;
+    private final ClassScanner scanner;
+    private final boolean[] used;
+    private int[] references = new int[64];
+    private int referenceCount;
+
+    private ClassCompactor(byte[] data) {
+        this.data = data;
+        this.scanner = new ClassScanner(data);
+        this.used = new boolean[scanner.getPoolCount()];
+    }
+
+    public static byte[] compact(byte[] classFile) {
+        try {
+            return new ClassCompactor(classFile).run();
+        } catch (UnsupportedOperationException | IndexOutOfBoundsException | ClassFormatException e) {
+            return classFile;
+        }
+    }
+
+    private byte[] run() {
+        val poolEnd = scanner.getPoolEnd();
+        int offset = poolEnd + 2;
+        reference(offset, false);
+        reference(offset + 2, false);
+        val interfaces = readUnsignedShort(offset + 4);
+        offset += 6;
+        for (int i = 0; i < interfaces; i++, offset += 2) {
+            reference(offset, false);
+        }
+        for (int pass = 0; pass < 2; pass++) {
+            val count = readUnsignedShort(offset);
+            offset += 2;
+            for (int i = 0; i < count; i++) {
+                reference(offset + 2, false);
+                reference(offset + 4, false);
+                offset = attributes(offset + 6);
+            }
+        }
+        offset = attributes(offset);
+        if (offset != data.length) {
+            throw new UnsupportedOperationException("Trailing data after class attributes");
+        }
+        for (int i = 0; i < referenceCount; i++) {
+            val position = references[i] & 0x7FFFFFFF;
+            mark(references[i] < 0 ? data[position] & 0xFF : readUnsignedShort(position));
+        }
+        val remapped = new int[used.length];
+        int next = 1;
+        for (int i = 1; i < used.length; i++) {
+            if (used[i]) {
+                remapped[i] = next;
+                next += isWide(scanner.getTag(i)) ? 2 : 1;
+            }
+        }
+        if (next == used.length) {
+            return data;
+        }
+        val output = new byte[data.length];
+        System.arraycopy(data, 0, output, 0, 8);
+        writeShort(output, 8, next);
+        int out = 10;
+        for (int i = 1; i < used.length; i++) {
+            if (!used[i]) {
+                continue;
+            }
+            val start = scanner.getOffset(i);
+            val length = constantLength(i);
+            System.arraycopy(data, start, output, out, length);
+            for (val field: constantReferences(scanner.getTag(i))) {
+                writeShort(output, out + field, remapped[readUnsignedShort(start + field)]);
+            }
+            out += length;
+        }
+        val shift = out - poolEnd;
+        System.arraycopy(data, poolEnd, output, out, data.length - poolEnd);
+        for (int i = 0; i < referenceCount; i++) {
+            val position = references[i] & 0x7FFFFFFF;
+            if (references[i] < 0) {
+                output[position + shift] = (byte) remapped[data[position] & 0xFF];
+            } else {
+                writeShort(output, position + shift, remapped[readUnsignedShort(position)]);
+            }
+        }
+        return Arrays.copyOf(output, data.length + shift);
+    }
+
+    private void mark(int index) {
+        if (index == 0 || used[index]) {
+            return;
+        }
+        if (scanner.getOffset(index) == 0) {
+            throw new UnsupportedOperationException("Reference to an unusable constant pool slot");
+        }
+        used[index] = true;
+        val offset = scanner.getOffset(index);
+        for (val field: constantReferences(scanner.getTag(index))) {
+            mark(readUnsignedShort(offset + field));
+        }
+    }
+
+    private static final int[] NONE = {};
+    private static final int[] FIRST = {1};
+    private static final int[] BOTH = {1, 3};
+    private static final int[] HANDLE = {2};
+    private static final int[] DYNAMIC = {3};
+
+    private static int[] constantReferences(int tag) {
+        switch (tag) {
+            case Const.CONSTANT_Class:
+            case Const.CONSTANT_String:
+            case Const.CONSTANT_MethodType:
+            case Const.CONSTANT_Module:
+            case Const.CONSTANT_Package:
+                return FIRST;
+            case Const.CONSTANT_Fieldref:
+            case Const.CONSTANT_Methodref:
+            case Const.CONSTANT_InterfaceMethodref:
+            case Const.CONSTANT_NameAndType:
+                return BOTH;
+            case Const.CONSTANT_MethodHandle:
+                return HANDLE;
+            case Const.CONSTANT_Dynamic:
+            case Const.CONSTANT_InvokeDynamic:
+                return DYNAMIC;
+            default:
+                return NONE;
+        }
+    }
+
+    private static boolean isWide(int tag) {
+        return tag == Const.CONSTANT_Long || tag == Const.CONSTANT_Double;
+    }
+
+    private int constantLength(int index) {
+        val next = index + (isWide(scanner.getTag(index)) ? 2 : 1);
+        return (next < used.length ? scanner.getOffset(next) : scanner.getPoolEnd()) - scanner.getOffset(index);
+    }
+
+    private void reference(int position, boolean singleByte) {
+        if (referenceCount == references.length) {
+            references = Arrays.copyOf(references, referenceCount * 2);
+        }
+        references[referenceCount++] = singleByte ? position | 0x80000000 : position;
+    }
+
+    private int attributes(int offset) {
+        val count = readUnsignedShort(offset);
+        offset += 2;
+        for (int i = 0; i < count; i++) {
+            reference(offset, false);
+            val name = scanner.getUtf8(readUnsignedShort(offset));
+            val length = readInt(offset + 2);
+            val start = offset + 6;
+            val end = start + length;
+            if (attribute(name, start, end) != end) {
+                throw new UnsupportedOperationException("Malformed " + name + " attribute");
+            }
+            offset = end;
+        }
+        return offset;
+    }
+
+    private int attribute(String name, int offset, int end) {
+        switch (name) {
+            case "ConstantValue":
+            case "Signature":
+            case "SourceFile":
+            case "NestHost":
+            case "ModuleMainClass":
+                reference(offset, false);
+                return offset + 2;
+            case "Synthetic":
+            case "Deprecated":
+            case "SourceDebugExtension":
+            case "LineNumberTable":
+                return end;
+            case "Exceptions":
+            case "NestMembers":
+            case "PermittedSubclasses":
+            case "ModulePackages":
+                return indexList(offset);
+            case "EnclosingMethod":
+                reference(offset, false);
+                reference(offset + 2, false);
+                return offset + 4;
+            case "InnerClasses": {
+                val count = readUnsignedShort(offset);
+                offset += 2;
+                for (int i = 0; i < count; i++, offset += 8) {
+                    reference(offset, false);
+                    reference(offset + 2, false);
+                    reference(offset + 4, false);
+                }
+                return offset;
+            }
+            case "LocalVariableTable":
+            case "LocalVariableTypeTable": {
+                val count = readUnsignedShort(offset);
+                offset += 2;
+                for (int i = 0; i < count; i++, offset += 10) {
+                    reference(offset + 4, false);
+                    reference(offset + 6, false);
+                }
+                return offset;
+            }
+            case "MethodParameters": {
+                val count = data[offset] & 0xFF;
+                offset += 1;
+                for (int i = 0; i < count; i++, offset += 4) {
+                    reference(offset, false);
+                }
+                return offset;
+            }
+            case "BootstrapMethods": {
+                val count = readUnsignedShort(offset);
+                offset += 2;
+                for (int i = 0; i < count; i++) {
+                    reference(offset, false);
+                    offset = indexList(offset + 2);
+                }
+                return offset;
+            }
+            case "Code":
+                return code(offset);
+            case "StackMapTable":
+                return stackMapTable(offset);
+            case "RuntimeVisibleAnnotations":
+            case "RuntimeInvisibleAnnotations":
+                return annotations(offset);
+            case "RuntimeVisibleParameterAnnotations":
+            case "RuntimeInvisibleParameterAnnotations": {
+                val count = data[offset] & 0xFF;
+                offset += 1;
+                for (int i = 0; i < count; i++) {
+                    offset = annotations(offset);
+                }
+                return offset;
+            }
+            case "RuntimeVisibleTypeAnnotations":
+            case "RuntimeInvisibleTypeAnnotations": {
+                val count = readUnsignedShort(offset);
+                offset += 2;
+                for (int i = 0; i < count; i++) {
+                    offset = typeAnnotation(offset);
+                }
+                return offset;
+            }
+            case "AnnotationDefault":
+                return elementValue(offset);
+            case "Record": {
+                val count = readUnsignedShort(offset);
+                offset += 2;
+                for (int i = 0; i < count; i++) {
+                    reference(offset, false);
+                    reference(offset + 2, false);
+                    offset = attributes(offset + 4);
+                }
+                return offset;
+            }
+            case "Module":
+                return module(offset);
+            default:
+                throw new UnsupportedOperationException("Unknown attribute " + name);
+        }
+    }
+
+    private int indexList(int offset) {
+        val count = readUnsignedShort(offset);
+        offset += 2;
+        for (int i = 0; i < count; i++, offset += 2) {
+            reference(offset, false);
+        }
+        return offset;
+    }
+
+    private int code(int offset) {
+        val codeLength = readInt(offset + 4);
+        val codeStart = offset + 8;
+        val codeEnd = codeStart + codeLength;
+        int pc = codeStart;
+        while (pc < codeEnd) {
+            val opcode = data[pc] & 0xFF;
+            switch (opcode) {
+                case Const.LDC:
+                    reference(pc + 1, true);
+                    break;
+                case Const.LDC_W:
+                case Const.LDC2_W:
+                case Const.GETSTATIC:
+                case Const.PUTSTATIC:
+                case Const.GETFIELD:
+                case Const.PUTFIELD:
+                case Const.INVOKEVIRTUAL:
+                case Const.INVOKESPECIAL:
+                case Const.INVOKESTATIC:
+                case Const.INVOKEINTERFACE:
+                case Const.INVOKEDYNAMIC:
+                case Const.NEW:
+                case Const.ANEWARRAY:
+                case Const.CHECKCAST:
+                case Const.INSTANCEOF:
+                case Const.MULTIANEWARRAY:
+                    reference(pc + 1, false);
+                    break;
+                default:
+                    break;
+            }
+            pc += instructionLength(pc, codeStart);
+        }
+        if (pc != codeEnd) {
+            throw new UnsupportedOperationException("Truncated bytecode");
+        }
+        val exceptions = readUnsignedShort(codeEnd);
+        offset = codeEnd + 2;
+        for (int i = 0; i < exceptions; i++, offset += 8) {
+            reference(offset + 6, false);
+        }
+        return attributes(offset);
+    }
+
+    private int instructionLength(int pc, int codeStart) {
+        val opcode = data[pc] & 0xFF;
+        switch (opcode) {
+            case Const.TABLESWITCH: {
+                val aligned = pc + 1 + (3 - (pc - codeStart) % 4);
+                val low = readInt(aligned + 4);
+                val high = readInt(aligned + 8);
+                return aligned + 12 + (high - low + 1) * 4 - pc;
+            }
+            case Const.LOOKUPSWITCH: {
+                val aligned = pc + 1 + (3 - (pc - codeStart) % 4);
+                return aligned + 8 + readInt(aligned + 4) * 8 - pc;
+            }
+            case Const.WIDE:
+                return (data[pc + 1] & 0xFF) == Const.IINC ? 6 : 4;
+            default:
+                val operands = Const.getNoOfOperands(opcode);
+                if (operands < 0) {
+                    throw new UnsupportedOperationException("Unknown opcode " + opcode);
+                }
+                return 1 + operands;
+        }
+    }
+
+    private int stackMapTable(int offset) {
+        val count = readUnsignedShort(offset);
+        offset += 2;
+        for (int i = 0; i < count; i++) {
+            val type = data[offset] & 0xFF;
+            offset += 1;
+            if (type < 64) {
+                continue;
+            } else if (type < 128) {
+                offset = verificationType(offset);
+            } else if (type < 247) {
+                throw new UnsupportedOperationException("Reserved stack map frame type " + type);
+            } else if (type == 247) {
+                offset = verificationType(offset + 2);
+            } else if (type < 252) {
+                offset += 2;
+            } else if (type < 255) {
+                offset += 2;
+                for (int j = 0; j < type - 251; j++) {
+                    offset = verificationType(offset);
+                }
+            } else {
+                offset += 2;
+                for (int pass = 0; pass < 2; pass++) {
+                    val types = readUnsignedShort(offset);
+                    offset += 2;
+                    for (int j = 0; j < types; j++) {
+                        offset = verificationType(offset);
+                    }
+                }
+            }
+        }
+        return offset;
+    }
+
+    private int verificationType(int offset) {
+        val tag = data[offset] & 0xFF;
+        if (tag == Const.ITEM_Object) {
+            reference(offset + 1, false);
+            return offset + 3;
+        }
+        return tag == Const.ITEM_NewObject ? offset + 3 : offset + 1;
+    }
+
+    private int annotations(int offset) {
+        val count = readUnsignedShort(offset);
+        offset += 2;
+        for (int i = 0; i < count; i++) {
+            offset = annotation(offset);
+        }
+        return offset;
+    }
+
+    private int annotation(int offset) {
+        reference(offset, false);
+        val pairs = readUnsignedShort(offset + 2);
+        offset += 4;
+        for (int i = 0; i < pairs; i++) {
+            reference(offset, false);
+            offset = elementValue(offset + 2);
+        }
+        return offset;
+    }
+
+    private int elementValue(int offset) {
+        val tag = (char) data[offset];
+        offset += 1;
+        switch (tag) {
+            case 'B':
+            case 'C':
+            case 'D':
+            case 'F':
+            case 'I':
+            case 'J':
+            case 'S':
+            case 'Z':
+            case 's':
+            case 'c':
+                reference(offset, false);
+                return offset + 2;
+            case 'e':
+                reference(offset, false);
+                reference(offset + 2, false);
+                return offset + 4;
+            case '@':
+                return annotation(offset);
+            case '[': {
+                val count = readUnsignedShort(offset);
+                offset += 2;
+                for (int i = 0; i < count; i++) {
+                    offset = elementValue(offset);
+                }
+                return offset;
+            }
+            default:
+                throw new UnsupportedOperationException("Unknown element value tag " + tag);
+        }
+    }
+
+    private int typeAnnotation(int offset) {
+        val target = data[offset] & 0xFF;
+        offset += 1;
+        switch (target) {
+            case 0x00:
+            case 0x01:
+            case 0x16:
+                offset += 1;
+                break;
+            case 0x10:
+            case 0x11:
+            case 0x12:
+            case 0x17:
+            case 0x42:
+            case 0x43:
+            case 0x44:
+            case 0x45:
+            case 0x46:
+                offset += 2;
+                break;
+            case 0x13:
+            case 0x14:
+            case 0x15:
+                break;
+            case 0x40:
+            case 0x41:
+                offset += 2 + readUnsignedShort(offset) * 6;
+                break;
+            case 0x47:
+            case 0x48:
+            case 0x49:
+            case 0x4A:
+            case 0x4B:
+                offset += 3;
+                break;
+            default:
+                throw new UnsupportedOperationException("Unknown type annotation target " + target);
+        }
+        offset += 1 + (data[offset] & 0xFF) * 2;
+        return annotation(offset);
+    }
+
+    private int module(int offset) {
+        reference(offset, false);
+        reference(offset + 4, false);
+        offset += 6;
+        val requires = readUnsignedShort(offset);
+        offset += 2;
+        for (int i = 0; i < requires; i++, offset += 6) {
+            reference(offset, false);
+            reference(offset + 4, false);
+        }
+        for (int pass = 0; pass < 2; pass++) {
+            val count = readUnsignedShort(offset);
+            offset += 2;
+            for (int i = 0; i < count; i++) {
+                reference(offset, false);
+                offset = indexList(offset + 4);
+            }
+        }
+        offset = indexList(offset);
+        val provides = readUnsignedShort(offset);
+        offset += 2;
+        for (int i = 0; i < provides; i++) {
+            reference(offset, false);
+            offset = indexList(offset + 2);
+        }
+        return offset;
+    }
+
+    private int readUnsignedShort(int offset) {
+        return scanner.readUnsignedShort(offset);
+    }
+
+    private int readInt(int offset) {
+        return scanner.readInt(offset);
+    }
+
+    private static void writeShort(byte[] output, int offset, int value) {
+        output[offset] = (byte) (value >>> 8);
+        output[offset + 1] = (byte) value;
+    }
+}
@@ -0,0 +1,245 @@
+package com.falsepattern.mappify;
+
+import com.falsepattern.mappify.mapping.ClassMapping;
+import com.falsepattern.mappify.mapping.MappingSet;
+import com.falsepattern.mappify.mapping.MemberMapping;
+import com.falsepattern.mappify.mapping.SignatureRemapper;
+import com.falsepattern.mappify.report.Metrics;
+import lombok.val;
+import lombok.var;
+import org.apache.bcel.Const;
+import org.apache.bcel.classfile.ConstantCP;
+import org.apache.bcel.classfile.ConstantClass;
+import org.apache.bcel.classfile.ConstantFieldref;
+import org.apache.bcel.classfile.ConstantInterfaceMethodref;
+import org.apache.bcel.classfile.ConstantMethodref;
+import org.apache.bcel.classfile.ConstantNameAndType;
+import org.apache.bcel.classfile.ConstantUtf8;
+import org.apache.bcel.classfile.JavaClass;
+
+public class ClassRemapper {
+    private final MappingSet mappings;
+    private final SignatureRemapper remapper;
+    private final MemberResolver members;
+
+    public ClassRemapper(MappingSet mappings) {
+        this.mappings = mappings;
+        this.remapper = new SignatureRemapper(mappings);
+        this.members = MemberResolver.create(mappings);
+    }
+
+    public MemberResolver getMembers() {
+        return members;
+    }
+
+    public boolean remap(JavaClass clazz) {
+        return remap(clazz, null);
+    }
+
+    public boolean references(ClassScanner scanner) {
+        return references(scanner, members);
+    }
+
+    public boolean references(ClassScanner scanner, MemberResolver members) {
+        if (mappings.getByInternalName(scanner.getClassName()) != null) {
+            return true;
+        }
+        for (int i = 1; i < scanner.getPoolCount(); i++) {
+            if (scanner.getTag(i) == Const.CONSTANT_Utf8) {
+                val str = scanner.getUtf8(i);
+                if (!remapper.remap(str).equals(str)) {
+                    return true;
+                }
+            }
+        }
+        if (!members.hasClasses()) {
+            return false;
+        }
+        for (int i = 1; i < scanner.getPoolCount(); i++) {
+            val tag = scanner.getTag(i);
+            if (tag == Const.CONSTANT_Fieldref || tag == Const.CONSTANT_Methodref || tag == Const.CONSTANT_InterfaceMethodref) {
+                val offset = scanner.getOffset(i);
+                val nat = scanner.getOffset(scanner.readUnsignedShort(offset + 3));
+                val name = scanner.getUtf8(scanner.readUnsignedShort(nat + 1));
+                val descriptor = scanner.getUtf8(scanner.readUnsignedShort(nat + 3));
+                val member = members.resolve(scanner.getClassName(scanner.readUnsignedShort(offset + 1)).replace('/', '.'), tag != Const.CONSTANT_Fieldref, name, descriptor);
+                if (member != null && !member.getTargetName().equals(name)) {
+                    return true;
+                }
+            }
+        }
+        for (val method: scanner.getMethods()) {
+            if (!isOverridable(method.access, method.name)) {
+                continue;
+            }
+            val member = members.resolveOverride(scanner.getSuperClassName(), scanner.getInterfaceNames(), method.name, method.signature);
+            if (member != null && !member.getTargetName().equals(method.name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public String inheritance(ClassScanner scanner, MemberResolver members) {
+        if (!members.hasClasses()) {
+            return "";
+        }
+        val result = new StringBuilder();
+        for (int i = 1; i < scanner.getPoolCount(); i++) {
+            val tag = scanner.getTag(i);
+            if (tag == Const.CONSTANT_Fieldref || tag == Const.CONSTANT_Methodref || tag == Const.CONSTANT_InterfaceMethodref) {
+                val offset = scanner.getOffset(i);
+                val nat = scanner.getOffset(scanner.readUnsignedShort(offset + 3));
+                val owner = scanner.getClassName(scanner.readUnsignedShort(offset + 1)).replace('/', '.');
+                val name = scanner.getUtf8(scanner.readUnsignedShort(nat + 1));
+                val descriptor = scanner.getUtf8(scanner.readUnsignedShort(nat + 3));
+                val method = tag != Const.CONSTANT_Fieldref;
+                if (!members.isDeclared(owner, method, name, descriptor)) {
+                    append(result.append(owner).append(method ? '#' : '.').append(name).append(' ').append(descriptor), members.resolve(owner, method, name, descriptor));
+                }
+            }
+        }
+        if (mappings.getByInternalName(scanner.getClassName()) != null) {
+            return result.toString();
+        }
+        for (val method: scanner.getMethods()) {
+            if (isOverridable(method.access, method.name)) {
+                append(result.append(method.name).append(' ').append(method.signature), members.resolveOverride(scanner.getSuperClassName(), scanner.getInterfaceNames(), method.name, method.signature));
+            }
+        }
+        return result.toString();
+    }
+
+    private static void append(StringBuilder result, MemberMapping member) {
+        result.append('=');
+        if (member != null) {
+            result.append(member.parent.originalName).append('.').append(member.originalName).append(' ').append(member.signature);
+        }
+        result.append('\n');
+    }
+
+    public boolean remap(JavaClass clazz, Metrics metrics) {
+        return remap(clazz, members, metrics);
+    }
+
+    public boolean remap(JavaClass clazz, MemberResolver members, Metrics metrics) {
+        val mapping = mappings.getByOriginalName(clazz.getClassName());
+        if (mapping != null) {
+            clazz.setFileName(mapping.getInternalTargetName() + ".class");
+        }
+        val pool = clazz.getConstantPool();
+        var l = pool.getLength();
+        int utf8Rewritten = 0;
+        int referencesRewritten = 0;
+        int declarationsRewritten = 0;
+        val owners = new ClassMapping[l];
+        val references = new MemberMapping[l];
+        for (int i = 0; i < l; i++) {
+            val constant = pool.getConstant(i);
+            if (constant instanceof ConstantFieldref || constant instanceof ConstantMethodref || constant instanceof ConstantInterfaceMethodref) {
+                val cp = (ConstantCP) constant;
+                val owner = cp.getClass(pool);
+                val nat = (ConstantNameAndType) pool.getConstant(cp.getNameAndTypeIndex());
+                val member = members.resolve(owner, !(constant instanceof ConstantFieldref), nat.getName(pool), nat.getSignature(pool));
+                if (member != null) {
+                    owners[i] = mappings.getByOriginalName(owner);
+                    references[i] = member;
+                }
+            }
+        }
+        val fields = clazz.getFields();
+        val fieldMappings = new MemberMapping[fields.length];
+        for (int i = 0; mapping != null && i < fields.length; i++) {
+            fieldMappings[i] = mapping.getField(fields[i].getName(), fields[i].getSignature());
+        }
+        val methods = clazz.getMethods();
+        val methodMappings = new MemberMapping[methods.length];
+        for (int i = 0; i < methods.length; i++) {
+            if (mapping != null) {
+                methodMappings[i] = mapping.getMethod(methods[i].getName(), methods[i].getSignature());
+            } else if (members.hasClasses() && isOverridable(methods[i].getAccessFlags(), methods[i].getName())) {
+                methodMappings[i] = members.resolveOverride(clazz.getSuperclassName(), clazz.getInterfaceNames(), methods[i].getName(), methods[i].getSignature());
+            }
+        }
+        for (int i = 0; i < l; i++) {
+            val constant = pool.getConstant(i);
+            if (constant instanceof ConstantUtf8) {
+                val str = ((ConstantUtf8) constant).getBytes();
+                val remapped = remapper.remap(str);
+                if (!remapped.equals(str)) {
+                    pool.setConstant(i, new ConstantUtf8(remapped));
+                    utf8Rewritten++;
+                }
+            }
+        }
+        if (mapping != null) {
+            pool.setConstant(((ConstantClass)pool.getConstant(clazz.getClassNameIndex())).getNameIndex(),
+                             new ConstantUtf8(mapping.getInternalTargetName()));
+        }
+        val poolManager = new PoolStringManager(pool);
+        for (int i = 0; i < l; i++) {
+            val member = references[i];
+            if (member != null) {
+                val cp = (ConstantCP) pool.getConstant(i);
+                if (owners[i] != null) {
+                    pool.setConstant(cp.getClassIndex(), new ConstantClass(poolManager.getUtf8Index(owners[i].getInternalTargetName())));
+                }
+                cp.setNameAndTypeIndex(poolManager.getNAT(member.getTargetName(), member.getMappedSignature()));
+                referencesRewritten++;
+            }
+        }
+        for (int i = 0; i < fields.length; i++) {
+            val mapField = fieldMappings[i];
+            if (mapField != null) {
+                fields[i].setNameIndex(poolManager.getUtf8Index(mapField.getTargetName()));
+                fields[i].setSignatureIndex(poolManager.getUtf8Index(mapField.getMappedSignature()));
+                fields[i].isSynthetic(false);
+                declarationsRewritten++;
+            }
+        }
+        for (int i = 0; i < methods.length; i++) {
+            val mapMethod = methodMappings[i];
+            if (mapMethod != null) {
+                methods[i].setNameIndex(poolManager.getUtf8Index(mapMethod.getTargetName()));
+                methods[i].setSignatureIndex(poolManager.getUtf8Index(mapMethod.getMappedSignature()));
+                methods[i].isSynthetic(false);
+                declarationsRewritten++;
+            }
+        }
+        poolManager.finish();
+        if (metrics != null) {
+            val growth = pool.getLength() - l;
+            metrics.add("pool.utf8Rewritten", utf8Rewritten);
+            metrics.add("pool.referencesRewritten", referencesRewritten);
+            metrics.add("pool.entriesAdded", growth);
+            metrics.max("pool.peakGrowth", growth);
+            metrics.add("members.declarationsRewritten", declarationsRewritten);
+        }
+        if (mapping != null && clazz.isEnum()) {
+            for (int i = 0; i < fields.length; i++) {
+                val field = fields[i];
+                if (field.isPrivate() && field.isStatic() && field.getSignature().equals("[L" + mapping.getInternalTargetName() + ";")) {
+                    field.isSynthetic(true);
+                    for (int j = i; j < fields.length - 1; j++) {
+                        val b = fields[j + 1];
+                        fields[j + 1] = fields[j];
+                        fields[j] = b;
+                    }
+                    break;
+                }
+            }
+            for (val method: clazz.getMethods()) {
+                if ((method.getName().equals("values") && method.getSignature().equals("()[L" + mapping.getInternalTargetName() + ";")) ||
+                    (method.getName().equals("valueOf") && method.getSignature().equals("(Ljava/lang/String;)L" + mapping.getInternalTargetName() + ";")) ||
+                    (method.getName().equals("<init>"))) {
+                    method.isSynthetic(true);
+                }
+            }
+        }
+        return mapping != null;
+    }
+
+    private static boolean isOverridable(int access, String name) {
+        return (access & (Const.ACC_PRIVATE | Const.ACC_STATIC)) == 0 && !name.startsWith("<");
+    }
+}
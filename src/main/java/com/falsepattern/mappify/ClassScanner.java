@@ -0,0 +1,188 @@
+package com.falsepattern.mappify;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.val;
+import org.apache.bcel.Const;
+import org.apache.bcel.classfile.ClassFormatException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class ClassScanner {
+    private final byte[] data;
+    private final int[] offsets;
+    private final String[] strings;
+    @Getter
+    private final int poolCount;
+    @Getter
+    private final int poolEnd;
+
+    public ClassScanner(byte[] data) {
+        this.data = data;
+        if (data.length < 10 || readInt(0) != 0xCAFEBABE) {
+            throw new ClassFormatException("Not a class file");
+        }
+        poolCount = readUnsignedShort(8);
+        offsets = new int[poolCount];
+        strings = new String[poolCount];
+        int offset = 10;
+        for (int i = 1; i < poolCount; i++) {
+            offsets[i] = offset;
+            val tag = data[offset] & 0xFF;
+            switch (tag) {
+                case Const.CONSTANT_Utf8:
+                    offset += 3 + readUnsignedShort(offset + 1);
+                    break;
+                case Const.CONSTANT_Class:
+                case Const.CONSTANT_String:
+                case Const.CONSTANT_MethodType:
+                case Const.CONSTANT_Module:
+                case Const.CONSTANT_Package:
+                    offset += 3;
+                    break;
+                case Const.CONSTANT_MethodHandle:
+                    offset += 4;
+                    break;
+                case Const.CONSTANT_Integer:
+                case Const.CONSTANT_Float:
+                case Const.CONSTANT_Fieldref:
+                case Const.CONSTANT_Methodref:
+                case Const.CONSTANT_InterfaceMethodref:
+                case Const.CONSTANT_NameAndType:
+                case Const.CONSTANT_Dynamic:
+                case Const.CONSTANT_InvokeDynamic:
+                    offset += 5;
+                    break;
+                case Const.CONSTANT_Long:
+                case Const.CONSTANT_Double:
+                    offset += 9;
+                    i++;
+                    break;
+                default:
+                    throw new ClassFormatException("Invalid constant pool tag " + tag + " at index " + i);
+            }
+        }
+        poolEnd = offset;
+    }
+
+    public int getTag(int index) {
+        return offsets[index] == 0 ? 0 : data[offsets[index]] & 0xFF;
+    }
+
+    public int getOffset(int index) {
+        return offsets[index];
+    }
+
+    public String getUtf8(int index) {
+        if (strings[index] == null) {
+            if (getTag(index) != Const.CONSTANT_Utf8) {
+                throw new ClassFormatException("Constant pool entry " + index + " is not a UTF8 entry");
+            }
+            val offset = offsets[index];
+            strings[index] = decodeUtf8(data, offset + 3, readUnsignedShort(offset + 1));
+        }
+        return strings[index];
+    }
+
+    public String getClassName(int classIndex) {
+        if (getTag(classIndex) != Const.CONSTANT_Class) {
+            throw new ClassFormatException("Constant pool entry " + classIndex + " is not a class entry");
+        }
+        return getUtf8(readUnsignedShort(offsets[classIndex] + 1));
+    }
+
+    public int getAccessFlags() {
+        return readUnsignedShort(poolEnd);
+    }
+
+    public String getClassName() {
+        return getClassName(readUnsignedShort(poolEnd + 2));
+    }
+
+    public String getSuperClassName() {
+        val index = readUnsignedShort(poolEnd + 4);
+        return index == 0 ? null : getClassName(index).replace('/', '.');
+    }
+
+    public String[] getInterfaceNames() {
+        val count = readUnsignedShort(poolEnd + 6);
+        val names = new String[count];
+        for (int i = 0; i < count; i++) {
+            names[i] = getClassName(readUnsignedShort(poolEnd + 8 + i * 2)).replace('/', '.');
+        }
+        return names;
+    }
+
+    public List<MemberHeader> getFields() {
+        return readMembers(poolEnd + 8 + readUnsignedShort(poolEnd + 6) * 2);
+    }
+
+    public List<MemberHeader> getMethods() {
+        return readMembers(skipMembers(poolEnd + 8 + readUnsignedShort(poolEnd + 6) * 2));
+    }
+
+    private List<MemberHeader> readMembers(int offset) {
+        val count = readUnsignedShort(offset);
+        offset += 2;
+        val members = new ArrayList<MemberHeader>(count);
+        for (int i = 0; i < count; i++) {
+            members.add(new MemberHeader(readUnsignedShort(offset),
+                                         getUtf8(readUnsignedShort(offset + 2)),
+                                         getUtf8(readUnsignedShort(offset + 4))));
+            offset = skipAttributes(offset + 6);
+        }
+        return members;
+    }
+
+    private int skipMembers(int offset) {
+        val count = readUnsignedShort(offset);
+        offset += 2;
+        for (int i = 0; i < count; i++) {
+            offset = skipAttributes(offset + 6);
+        }
+        return offset;
+    }
+
+    private int skipAttributes(int offset) {
+        val count = readUnsignedShort(offset);
+        offset += 2;
+        for (int i = 0; i < count; i++) {
+            offset += 6 + readInt(offset + 2);
+        }
+        return offset;
+    }
+
+    public int readUnsignedShort(int offset) {
+        return ((data[offset] & 0xFF) << 8) | (data[offset + 1] & 0xFF);
+    }
+
+    public int readInt(int offset) {
+        return ((data[offset] & 0xFF) << 24) | ((data[offset + 1] & 0xFF) << 16) | ((data[offset + 2] & 0xFF) << 8) | (data[offset + 3] & 0xFF);
+    }
+
+    public static String decodeUtf8(byte[] data, int offset, int length) {
+        val chars = new char[length];
+        int count = 0;
+        val end = offset + length;
+        while (offset < end) {
+            val b = data[offset++] & 0xFF;
+            if (b < 0x80) {
+                chars[count++] = (char) b;
+            } else if ((b & 0xE0) == 0xC0) {
+                chars[count++] = (char) (((b & 0x1F) << 6) | (data[offset++] & 0x3F));
+            } else {
+                chars[count++] = (char) (((b & 0x0F) << 12) | ((data[offset] & 0x3F) << 6) | (data[offset + 1] & 0x3F));
+                offset += 2;
+            }
+        }
+        return new String(chars, 0, count);
+    }
+
+    @RequiredArgsConstructor
+    public static class MemberHeader {
+        public final int access;
+        public final String name;
+        public final String signature;
+    }
+}
@@ -0,0 +1,132 @@
+package com.falsepattern.mappify;
+
+import lombok.Cleanup;
+import lombok.RequiredArgsConstructor;
+import lombok.val;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class ConvertCache {
+    private static final int FORMAT_VERSION = 2;
+    private static final String SUFFIX = ".entry";
+
+    private final Path directory;
+    private final long maxBytes;
+    private final byte[] fingerprint;
+    private final ThreadLocal<MessageDigest> digests = ThreadLocal.withInitial(() -> Hashing.newDigest("SHA-256"));
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong bytesSaved = new AtomicLong();
+    private final AtomicLong bytesWritten = new AtomicLong();
+
+    public ConvertCache(Path directory, long maxBytes, String mappingFingerprint) throws IOException {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        this.fingerprint = (FORMAT_VERSION + ":" + mappingFingerprint + ":").getBytes(StandardCharsets.UTF_8);
+        Files.createDirectories(directory);
+    }
+
+    public String key(byte[] classBytes, String context) {
+        val digest = digests.get();
+        digest.reset();
+        digest.update(fingerprint);
+        digest.update(classBytes);
+        digest.update(context.getBytes(StandardCharsets.UTF_8));
+        return Hashing.bytesToHex(digest.digest());
+    }
+
+    private Path path(String key) {
+        return directory.resolve(key.substring(0, 2)).resolve(key.substring(2) + SUFFIX);
+    }
+
+    public EntryData get(String key, ZipArchiveEntry source) throws IOException {
+        val file = path(key);
+        try {
+            @Cleanup val input = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)));
+            val name = input.readUTF();
+            val crc = input.readLong();
+            val size = input.readLong();
+            val compressed = new byte[input.readInt()];
+            input.readFully(compressed);
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+            hits.incrementAndGet();
+            bytesSaved.addAndGet(size);
+            return EntryData.precompressed(source, name, crc, size, compressed);
+        } catch (NoSuchFileException e) {
+            misses.incrementAndGet();
+            return null;
+        } catch (IOException e) {
+            misses.incrementAndGet();
+            Files.deleteIfExists(file);
+            return null;
+        }
+    }
+
+    public void put(String key, EntryData data) throws IOException {
+        val file = path(key);
+        Files.createDirectories(file.getParent());
+        val temp = Files.createTempFile(file.getParent(), "tmp", SUFFIX);
+        try {
+            try (val output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                output.writeUTF(data.entry.getName());
+                output.writeLong(data.entry.getCrc());
+                output.writeLong(data.entry.getSize());
+                output.writeInt(data.getCompressed().length);
+                output.write(data.getCompressed());
+            }
+            bytesWritten.addAndGet(Files.size(temp));
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    public void evict() throws IOException {
+        val files = new ArrayList<CachedFile>();
+        try (Stream<Path> stream = Files.walk(directory)) {
+            for (val path: stream.filter((file) -> file.getFileName().toString().endsWith(SUFFIX)).collect(Collectors.toList())) {
+                files.add(new CachedFile(path, Files.getLastModifiedTime(path).toMillis(), Files.size(path)));
+            }
+        }
+        long total = files.stream().mapToLong((file) -> file.size).sum();
+        files.sort(Comparator.comparingLong((file) -> file.lastUsed));
+        for (val file: files) {
+            if (total <= maxBytes) {
+                break;
+            }
+            Files.deleteIfExists(file.path);
+            total -= file.size;
+        }
+    }
+
+    public String report() {
+        val h = hits.get();
+        val m = misses.get();
+        return "Cache: " + h + " hits, " + m + " misses (" + (h + m == 0 ? 0 : h * 100 / (h + m)) + "% hit rate), " +
+               bytesSaved.get() + " bytes served from cache, " + bytesWritten.get() + " bytes written to cache";
+    }
+
+    @RequiredArgsConstructor
+    private static class CachedFile {
+        final Path path;
+        final long lastUsed;
+        final long size;
+    }
+}
@@ -0,0 +1,82 @@
+package com.falsepattern.mappify;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.val;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.apache.commons.compress.archivers.zip.ZipFile;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+
+@RequiredArgsConstructor
+public class EntryData {
+    public final ZipArchiveEntry entry;
+    @Getter
+    private final byte[] compressed;
+
+    public static EntryData raw(ZipArchiveEntry entry) {
+        return new EntryData(entry, null);
+    }
+
+    public static EntryData deflate(ZipArchiveEntry source, String name, byte[] data) {
+        val entry = new ZipArchiveEntry(name);
+        entry.setTime(source.getTime());
+        entry.setMethod(ZipEntry.DEFLATED);
+        val crc = new CRC32();
+        crc.update(data, 0, data.length);
+        entry.setCrc(crc.getValue());
+        entry.setSize(data.length);
+        val deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        try {
+            deflater.setInput(data);
+            deflater.finish();
+            val output = new ByteArrayOutputStream(Math.max(64, data.length / 2));
+            val buf = new byte[8192];
+            while (!deflater.finished()) {
+                output.write(buf, 0, deflater.deflate(buf));
+            }
+            entry.setCompressedSize(output.size());
+            return new EntryData(entry, output.toByteArray());
+        } finally {
+            deflater.end();
+        }
+    }
+
+    public static EntryData directory(ZipArchiveEntry source) {
+        val entry = new ZipArchiveEntry(source.getName());
+        entry.setTime(source.getTime());
+        entry.setMethod(ZipEntry.STORED);
+        entry.setCrc(0);
+        entry.setSize(0);
+        entry.setCompressedSize(0);
+        return new EntryData(entry, new byte[0]);
+    }
+
+    public static EntryData precompressed(ZipArchiveEntry source, String name, long crc, long size, byte[] compressed) {
+        val entry = new ZipArchiveEntry(name);
+        entry.setTime(source.getTime());
+        entry.setMethod(ZipEntry.DEFLATED);
+        entry.setCrc(crc);
+        entry.setSize(size);
+        entry.setCompressedSize(compressed.length);
+        return new EntryData(entry, compressed);
+    }
+
+    public boolean isRaw() {
+        return compressed == null;
+    }
+
+    public void write(ZipFile input, ZipArchiveOutputStream output) throws IOException {
+        if (compressed == null) {
+            output.addRawArchiveEntry(entry, input.getRawInputStream(entry));
+        } else {
+            output.addRawArchiveEntry(entry, new ByteArrayInputStream(compressed));
+        }
+    }
+}
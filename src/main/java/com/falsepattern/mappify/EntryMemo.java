@@ -0,0 +1,96 @@
+package com.falsepattern.mappify;
+
+import lombok.Cleanup;
+import lombok.RequiredArgsConstructor;
+import lombok.val;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipFile;
+import org.apache.commons.compress.utils.IOUtils;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+public class EntryMemo {
+    private final ConcurrentMap<String, Memo> entries = new ConcurrentHashMap<>();
+    private Map<String, Supertypes> supertypes = new HashMap<>();
+
+    public EntryData get(ZipArchiveEntry source) {
+        val memo = entries.get(source.getName());
+        if (memo == null || source.getCrc() < 0 || memo.crc != source.getCrc() || memo.size != source.getSize()) {
+            return null;
+        }
+        val result = memo.result;
+        if (result.isRaw()) {
+            return EntryData.raw(source);
+        }
+        return EntryData.precompressed(source, result.entry.getName(), result.entry.getCrc(), result.entry.getSize(), result.getCompressed());
+    }
+
+    public void put(ZipArchiveEntry source, EntryData result) {
+        if (source.getCrc() >= 0) {
+            entries.put(source.getName(), new Memo(source.getCrc(), source.getSize(), result));
+        }
+    }
+
+    public void checkSupertypes(ZipFile jar) throws IOException {
+        val current = new HashMap<String, Supertypes>();
+        for (val entry: Collections.list(jar.getEntries())) {
+            if (!entry.getName().endsWith(".class") || entry.isDirectory()) {
+                continue;
+            }
+            val known = supertypes.get(entry.getName());
+            if (known != null && entry.getCrc() >= 0 && known.crc == entry.getCrc() && known.size == entry.getSize()) {
+                current.put(entry.getName(), known);
+                continue;
+            }
+            @Cleanup val input = jar.getInputStream(entry);
+            val scanner = new ClassScanner(IOUtils.toByteArray(input));
+            current.put(entry.getName(), new Supertypes(entry.getCrc(), entry.getSize(), scanner.getSuperClassName() + " " + String.join(" ", scanner.getInterfaceNames())));
+        }
+        if (!current.keySet().equals(supertypes.keySet()) || !sameSupertypes(current)) {
+            entries.keySet().removeIf((name) -> name.endsWith(".class"));
+        }
+        supertypes = current;
+    }
+
+    private boolean sameSupertypes(Map<String, Supertypes> current) {
+        for (val entry: current.entrySet()) {
+            if (!entry.getValue().names.equals(supertypes.get(entry.getKey()).names)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public void retainAll(Set<String> names) {
+        entries.keySet().retainAll(names);
+    }
+
+    public void clear() {
+        entries.clear();
+        supertypes.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    @RequiredArgsConstructor
+    private static class Memo {
+        final long crc;
+        final long size;
+        final EntryData result;
+    }
+
+    @RequiredArgsConstructor
+    private static class Supertypes {
+        final long crc;
+        final long size;
+        final String names;
+    }
+}
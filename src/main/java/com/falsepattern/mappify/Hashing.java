@@ -0,0 +1,129 @@
+package com.falsepattern.mappify;
+
+import lombok.Cleanup;
+import lombok.SneakyThrows;
+import lombok.val;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class Hashing {
+    public static final String[] JAR_ALGORITHMS = {"MD5", "SHA-256", "SHA-512"};
+    public static final String CLASS_ALGORITHM = "SHA-256";
+    private static final int BUFFER_SIZE = 1 << 20;
+    private static final long MAP_REGION_SIZE = 1L << 26;
+
+    public static String hash(Path file) throws IOException {
+        return hash(file, false);
+    }
+
+    public static String hash(Path file, boolean parallel) throws IOException {
+        return format(digest(file, parallel, JAR_ALGORITHMS));
+    }
+
+    public static String format(byte[][] digests) {
+        val result = new StringBuilder("HASH: ");
+        for (int i = 0; i < JAR_ALGORITHMS.length; i++) {
+            if (i > 0) {
+                result.append(';');
+            }
+            result.append(JAR_ALGORITHMS[i]).append(' ').append(bytesToHex(digests[i]));
+        }
+        return result.toString();
+    }
+
+    public static boolean verify(Path file, String expectedHash) throws IOException {
+        return hash(file).equals(expectedHash);
+    }
+
+    public static byte[][] digest(Path file, boolean parallel, String... algorithms) throws IOException {
+        val digests = new MessageDigest[algorithms.length];
+        for (int i = 0; i < algorithms.length; i++) {
+            digests[i] = newDigest(algorithms[i]);
+        }
+        @Cleanup val channel = FileChannel.open(file, StandardOpenOption.READ);
+        if (parallel && algorithms.length > 1 && channel.size() > BUFFER_SIZE) {
+            digestParallel(channel, digests);
+        } else {
+            val buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            while (channel.read(buffer) >= 0) {
+                buffer.flip();
+                for (val digest: digests) {
+                    digest.update(buffer.array(), 0, buffer.limit());
+                }
+                buffer.clear();
+            }
+        }
+        val result = new byte[algorithms.length][];
+        for (int i = 0; i < digests.length; i++) {
+            result[i] = digests[i].digest();
+        }
+        return result;
+    }
+
+    private static void digestParallel(FileChannel channel, MessageDigest[] digests) throws IOException {
+        val size = channel.size();
+        val regions = new ArrayList<MappedByteBuffer>();
+        for (long position = 0; position < size; position += MAP_REGION_SIZE) {
+            regions.add(channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(MAP_REGION_SIZE, size - position)));
+        }
+        val executor = Executors.newFixedThreadPool(digests.length);
+        try {
+            val futures = new ArrayList<Future<?>>();
+            for (val digest: digests) {
+                futures.add(executor.submit(() -> digestRegions(digest, regions)));
+            }
+            for (val future: futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        } catch (ExecutionException e) {
+            throw new IOException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void digestRegions(MessageDigest digest, List<MappedByteBuffer> regions) {
+        for (val region: regions) {
+            digest.update(region.duplicate());
+        }
+    }
+
+    @SneakyThrows
+    public static MessageDigest newDigest(String algorithm) {
+        return MessageDigest.getInstance(algorithm);
+    }
+
+    public static String digest(String algorithm, byte[] data) {
+        return bytesToHex(newDigest(algorithm).digest(data));
+    }
+
+    public static String classDigest(byte[] data) {
+        return digest(CLASS_ALGORITHM, data);
+    }
+
+    public static String bytesToHex(byte[] hash) {
+        StringBuilder hexString = new StringBuilder(2 * hash.length);
+        for (byte b : hash) {
+            String hex = Integer.toHexString(0xff & b);
+            if (hex.length() == 1) {
+                hexString.append('0');
+            }
+            hexString.append(hex);
+        }
+        return hexString.toString();
+    }
+}
@@ -0,0 +1,106 @@
+package com.falsepattern.mappify;
+
+import com.falsepattern.mappify.report.Log;
+import com.falsepattern.mappify.report.Metrics;
+import lombok.val;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class JarBatch {
+    private final Remapper remapper;
+    private final ExecutorService executor;
+    private final ConvertCache cache;
+    private final Metrics metrics;
+    private final Set<String> hashes;
+    private final boolean digests;
+
+    public JarBatch(Remapper remapper, ExecutorService executor, ConvertCache cache, Metrics metrics) {
+        this(remapper, executor, cache, metrics, null, false);
+    }
+
+    public JarBatch(Remapper remapper, ExecutorService executor, ConvertCache cache, Metrics metrics, Set<String> hashes, boolean digests) {
+        this.remapper = remapper;
+        this.executor = executor;
+        this.cache = cache;
+        this.metrics = metrics;
+        this.hashes = hashes;
+        this.digests = digests;
+    }
+
+    public void run(List<Path> inputs, Path outputDirectory, int jobs) throws IOException, InterruptedException {
+        Files.createDirectories(outputDirectory);
+        val outputs = new LinkedHashMap<Path, Path>();
+        for (val input: inputs) {
+            val output = outputDirectory.resolve(input.getFileName().toString());
+            if (outputs.containsValue(output)) {
+                throw new IllegalArgumentException("More than one input jar would be written to " + output);
+            }
+            outputs.put(input, output);
+        }
+        val pool = Executors.newFixedThreadPool(Math.max(1, Math.min(jobs, inputs.size())));
+        try {
+            val futures = new LinkedHashMap<Path, Future<?>>();
+            for (val entry: outputs.entrySet()) {
+                futures.put(entry.getKey(), pool.submit(() -> {
+                    convert(entry.getKey(), entry.getValue());
+                    return null;
+                }));
+            }
+            int failed = 0;
+            for (val entry: futures.entrySet()) {
+                try {
+                    entry.getValue().get();
+                } catch (ExecutionException e) {
+                    failed++;
+                    Log.error("Failed to convert " + entry.getKey() + ": " + e.getCause());
+                }
+            }
+            if (failed > 0) {
+                throw new IOException(failed + " of " + inputs.size() + " jars failed to convert!");
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private void convert(Path input, Path output) throws IOException {
+        val start = System.nanoTime();
+        if (hashes != null) {
+            verify(input);
+        }
+        val temp = Files.createTempFile(output.getParent(), output.getFileName().toString(), ".tmp");
+        try {
+            remapper.remapJar(input, temp, executor, cache, metrics);
+            Files.move(temp, output, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        metrics.add("jars", 1);
+        metrics.add("bytes.in", Files.size(input));
+        metrics.add("bytes.out", Files.size(output));
+        Log.info("Converted " + input.getFileName() + " in " + (System.nanoTime() - start) / 1000000 + " ms.");
+    }
+
+    private void verify(Path input) throws IOException {
+        String hash;
+        try (val phase = metrics.phase("hash")) {
+            hash = Hashing.hash(input);
+        }
+        if (hashes.contains(hash)) {
+            metrics.add("jars.verified", 1);
+            return;
+        }
+        Log.warn(input.getFileName() + " does not match the hash of any mapfile, converting it without hash verification." +
+                 (digests ? " Mapped classes are still checked against their digests." : ""));
+    }
+}
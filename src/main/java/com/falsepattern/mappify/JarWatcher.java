@@ -0,0 +1,117 @@
+package com.falsepattern.mappify;
+
+import com.falsepattern.mappify.mapping.MappingSet;
+import com.falsepattern.mappify.mapping.Util;
+import com.falsepattern.mappify.report.Log;
+import com.falsepattern.mappify.report.Metrics;
+import lombok.Cleanup;
+import lombok.val;
+import lombok.var;
+
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.LinkedHashSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+public class JarWatcher {
+    private final Path source;
+    private final Path target;
+    private final Path mapfile;
+    private final ExecutorService executor;
+    private final long debounceMillis;
+    private final Function<MappingSet, Remapper> remappers;
+    private final EntryMemo memo = new EntryMemo();
+    private Remapper remapper;
+
+    public JarWatcher(Path source, Path target, Path mapfile, ExecutorService executor, long debounceMillis) {
+        this(source, target, mapfile, executor, debounceMillis, Remapper::new);
+    }
+
+    public JarWatcher(Path source, Path target, Path mapfile, ExecutorService executor, long debounceMillis, Function<MappingSet, Remapper> remappers) {
+        this.source = source.toAbsolutePath().normalize();
+        this.target = target.toAbsolutePath().normalize();
+        this.mapfile = mapfile.toAbsolutePath().normalize();
+        this.executor = executor;
+        this.debounceMillis = debounceMillis;
+        this.remappers = remappers;
+    }
+
+    public void run() throws IOException, InterruptedException {
+        loadMappings();
+        convert();
+        @Cleanup val watcher = FileSystems.getDefault().newWatchService();
+        val directories = new LinkedHashSet<Path>();
+        directories.add(source.getParent());
+        directories.add(mapfile.getParent());
+        for (val directory: directories) {
+            directory.register(watcher, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        }
+        Log.info("Watching " + source + " and " + mapfile + " for changes...");
+        while (true) {
+            var key = watcher.take();
+            boolean sourceChanged = false;
+            boolean mappingsChanged = false;
+            while (key != null) {
+                val directory = (Path) key.watchable();
+                for (val event: key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                        sourceChanged = true;
+                        continue;
+                    }
+                    val changed = directory.resolve((Path) ((WatchEvent<?>) event).context());
+                    if (changed.equals(source)) {
+                        sourceChanged = true;
+                    } else if (changed.equals(mapfile)) {
+                        mappingsChanged = true;
+                    }
+                }
+                key.reset();
+                key = watcher.poll(debounceMillis, TimeUnit.MILLISECONDS);
+            }
+            try {
+                if (mappingsChanged) {
+                    loadMappings();
+                }
+                if (sourceChanged || mappingsChanged) {
+                    convert();
+                }
+            } catch (IOException | RuntimeException e) {
+                Log.warn("Conversion failed, waiting for the next change: " + e);
+            }
+        }
+    }
+
+    private void loadMappings() throws IOException {
+        remapper = remappers.apply(Util.parseClasses(mapfile, null));
+        memo.clear();
+        Log.info("Loaded " + remapper.getClassCount() + " class mappings from " + mapfile);
+    }
+
+    private void convert() throws IOException {
+        if (!Files.exists(source)) {
+            return;
+        }
+        val metrics = new Metrics("watch");
+        val start = System.nanoTime();
+        val temp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+        try {
+            remapper.remapJar(source, temp, executor, null, memo, metrics);
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        val counters = metrics.getCounters();
+        Log.info("Converted " + source.getFileName() + " in " + (System.nanoTime() - start) / 1000000 + " ms: " +
+                 counters.getOrDefault("classes.remapped", 0L) + " classes remapped, " +
+                 counters.getOrDefault("classes.unchanged", 0L) + " unchanged.");
+    }
+}
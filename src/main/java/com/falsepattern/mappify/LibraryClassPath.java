@@ -0,0 +1,156 @@
+package com.falsepattern.mappify;
+
+import com.falsepattern.mappify.mapping.ClassInfo;
+import com.falsepattern.mappify.mapping.ClassInfoProvider;
+import lombok.Cleanup;
+import lombok.SneakyThrows;
+import lombok.val;
+import org.apache.bcel.Const;
+import org.apache.commons.compress.archivers.zip.ZipFile;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class LibraryClassPath implements ClassInfoProvider, AutoCloseable {
+    private static final ClassInfo MISSING = new ClassInfo(null, null, new String[0], Collections.emptySet());
+
+    private final List<Path> jars;
+    private final ZipFile[] opened;
+    private final ClassLoader platform;
+    private final Map<String, ClassInfo> cache;
+    private final AtomicInteger loaded = new AtomicInteger();
+
+    public LibraryClassPath(List<Path> jars, boolean includePlatform, int cacheSize) {
+        this.jars = jars;
+        this.opened = new ZipFile[jars.size()];
+        this.platform = includePlatform ? ClassLoader.getSystemClassLoader().getParent() : null;
+        this.cache = new LinkedHashMap<String, ClassInfo>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, ClassInfo> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    public static LibraryClassPath parse(String classPath, int cacheSize) {
+        return new LibraryClassPath(split(classPath), true, cacheSize);
+    }
+
+    public static List<Path> split(String classPath) {
+        val jars = new ArrayList<Path>();
+        if (classPath != null) {
+            for (val element: classPath.split(File.pathSeparator)) {
+                if (!element.isEmpty()) {
+                    jars.add(Paths.get(element));
+                }
+            }
+        }
+        return jars;
+    }
+
+    @Override
+    public ClassInfo getClassInfo(String className) {
+        ClassInfo info;
+        synchronized (cache) {
+            info = cache.get(className);
+        }
+        if (info == null) {
+            val result = load(className);
+            info = result == null ? MISSING : result;
+            synchronized (cache) {
+                val existing = cache.putIfAbsent(className, info);
+                if (existing != null) {
+                    info = existing;
+                }
+            }
+        }
+        return info == MISSING ? null : info;
+    }
+
+    public int getLoadedCount() {
+        return loaded.get();
+    }
+
+    @SneakyThrows
+    private ClassInfo load(String className) {
+        val entryName = className.replace('.', '/') + ".class";
+        for (int i = 0; i < jars.size(); i++) {
+            val jar = jar(i);
+            byte[] bytes = null;
+            synchronized (jar) {
+                val entry = jar.getEntry(entryName);
+                if (entry != null) {
+                    @Cleanup val input = jar.getInputStream(entry);
+                    bytes = readFully(input);
+                }
+            }
+            if (bytes != null) {
+                return parse(bytes);
+            }
+        }
+        if (platform != null) {
+            @Cleanup val input = platform.getResourceAsStream(entryName);
+            if (input != null) {
+                return parse(readFully(input));
+            }
+        }
+        return null;
+    }
+
+    private ZipFile jar(int index) throws IOException {
+        synchronized (opened) {
+            if (opened[index] == null) {
+                opened[index] = new ZipFile(jars.get(index).toFile());
+            }
+            return opened[index];
+        }
+    }
+
+    private ClassInfo parse(byte[] bytes) {
+        loaded.incrementAndGet();
+        val scanner = new ClassScanner(bytes);
+        val methods = new HashSet<String>();
+        for (val method: scanner.getMethods()) {
+            if ((method.access & (Const.ACC_PRIVATE | Const.ACC_STATIC)) != 0 || method.name.startsWith("<")) {
+                continue;
+            }
+            methods.add(ClassInfo.methodKey(method.name, method.signature));
+        }
+        return new ClassInfo(scanner.getClassName().replace('/', '.'),
+                             scanner.getSuperClassName(),
+                             scanner.getInterfaceNames(),
+                             methods);
+    }
+
+    private static byte[] readFully(InputStream input) throws IOException {
+        val output = new ByteArrayOutputStream();
+        val buf = new byte[8192];
+        int n;
+        while ((n = input.read(buf)) > 0) {
+            output.write(buf, 0, n);
+        }
+        return output.toByteArray();
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (opened) {
+            for (val jar: opened) {
+                if (jar != null) {
+                    jar.close();
+                }
+            }
+        }
+    }
+}
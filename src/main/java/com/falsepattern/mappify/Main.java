@@ -1,261 +1,549 @@
 package com.falsepattern.mappify;
 
+import com.falsepattern.mappify.mapping.BinaryMappings;
+import com.falsepattern.mappify.mapping.ClassHierarchy;
+import com.falsepattern.mappify.mapping.ClassInfoProvider;
 import com.falsepattern.mappify.mapping.ClassMapping;
-import com.falsepattern.mappify.mapping.MemberMapping;
+import com.falsepattern.mappify.mapping.MappingSet;
+import com.falsepattern.mappify.mapping.MappingWriter;
+import com.falsepattern.mappify.mapping.NameGenerator;
 import com.falsepattern.mappify.mapping.Util;
+import com.falsepattern.mappify.report.Log;
+import com.falsepattern.mappify.report.Metrics;
 import lombok.Cleanup;
+import lombok.RequiredArgsConstructor;
 import lombok.SneakyThrows;
 import lombok.val;
 import lombok.var;
 import org.apache.bcel.classfile.ClassParser;
-import org.apache.bcel.classfile.ConstantCP;
-import org.apache.bcel.classfile.ConstantClass;
-import org.apache.bcel.classfile.ConstantFieldref;
-import org.apache.bcel.classfile.ConstantMethodref;
-import org.apache.bcel.classfile.ConstantNameAndType;
-import org.apache.bcel.classfile.ConstantUtf8;
+import org.apache.bcel.classfile.JavaClass;
+import org.apache.commons.compress.archivers.zip.ZipFile;
+import org.apache.commons.compress.utils.CountingInputStream;
+import org.apache.commons.compress.utils.CountingOutputStream;
+import org.apache.commons.compress.utils.IOUtils;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.io.PrintStream;
-import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.security.DigestInputStream;
 import java.security.MessageDigest;
-import java.security.Security;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Comparator;
-import java.util.HashMap;
 import java.util.HashSet;
-import java.util.jar.JarFile;
-import java.util.jar.JarOutputStream;
-import java.util.stream.Collectors;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipFile;
-import java.util.zip.ZipOutputStream;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.zip.GZIPOutputStream;
 
 public class Main {
     public static void main(String[] args) {
-        if (args.length == 0) {
+        val arguments = Arguments.parse(args);
+        if (arguments.size() == 0) {
             helpAndExit();
         }
-        switch (args[0]) {
-            case "dump":
-                dump(args);
-                break;
-            case "convert":
-                convert(args);
-                break;
-            default:
-                helpAndExit();
+        if (arguments.hasOption("log")) {
+            Log.setLevel(arguments.getOption("log", "info"));
+        }
+        val metrics = new Metrics(arguments.get(0));
+        if (arguments.hasOption("jmx")) {
+            metrics.registerMBean();
+        }
+        try {
+            switch (arguments.get(0)) {
+                case "dump":
+                    dump(arguments, metrics);
+                    break;
+                case "convert":
+                    convert(arguments, metrics);
+                    break;
+                case "batch":
+                    batch(arguments, metrics);
+                    break;
+                case "watch":
+                    watch(arguments);
+                    break;
+                case "invert":
+                    invert(arguments);
+                    break;
+                case "compose":
+                    compose(arguments);
+                    break;
+                case "retrace":
+                    retrace(arguments);
+                    break;
+                default:
+                    helpAndExit();
+            }
+            report(arguments, metrics);
+        } finally {
+            metrics.unregisterMBean();
         }
     }
 
     @SneakyThrows
-    private static void convert(String[] args) {
-        if (args.length != 4) {
+    private static void report(Arguments args, Metrics metrics) {
+        if (!args.hasOption("report")) {
+            return;
+        }
+        if (!isStreaming(args)) {
+            switch (args.get(0)) {
+                case "dump":
+                case "convert":
+                case "invert":
+                    addSize(metrics, "bytes.in", args, 1);
+                    addSize(metrics, "bytes.out", args, 2);
+                    break;
+                case "compose":
+                    addSize(metrics, "bytes.in", args, 1);
+                    addSize(metrics, "bytes.in", args, 2);
+                    addSize(metrics, "bytes.out", args, 3);
+                    break;
+                case "retrace":
+                    addSize(metrics, "bytes.in", args, 2);
+                    addSize(metrics, "bytes.out", args, 3);
+                    break;
+            }
+        }
+        metrics.writeJson(Paths.get(args.getOption("report", "")));
+    }
+
+    private static void addSize(Metrics metrics, String counter, Arguments args, int index) throws IOException {
+        if (index >= args.size() || args.get(index).equals("-")) {
+            return;
+        }
+        val file = Paths.get(args.get(index));
+        if (Files.isRegularFile(file)) {
+            metrics.add(counter, Files.size(file));
+        }
+    }
+
+    @SneakyThrows
+    private static void convert(Arguments args, Metrics metrics) {
+        if (args.size() != 4) {
             helpAndExit();
         }
-        @Cleanup val inputJar = new JarFile(args[1]);
-        @Cleanup val outputJar = new JarOutputStream(Files.newOutputStream(Paths.get(args[2])), inputJar.getManifest());
-        val mappings = Util.parseClasses(Files.newInputStream(Paths.get(args[3])), hash(args[1]));
-        val memberReplacements = mappings.stream().flatMap((mapping) -> {
-            val result = new ArrayList<MemberMapping>();
-            result.addAll(mapping.fields);
-            result.addAll(mapping.methods);
-            return result.stream();
-        }).collect(Collectors.toList());
-        val entries = inputJar.entries();
-        while (entries.hasMoreElements()) {
-            val entry = entries.nextElement();
-            if (entry.getName().equals("META-INF/MANIFEST.MF")) {
-                continue;
+        if (isStreaming(args)) {
+            convertStream(args, metrics);
+            return;
+        }
+        MappingSet mappings;
+        try (val phase = metrics.phase("mappings")) {
+            mappings = Util.parseClasses(Paths.get(args.get(3)), null);
+        }
+        if (args.hasOption("reverse")) {
+            mappings = mappings.invert();
+        } else if (mappings.hasDigests()) {
+            Log.info("Verifying the mapped classes against their digests in the mapfile.");
+        } else {
+            try (val phase = metrics.phase("hash")) {
+                Util.verifyHash(Hashing.hash(Paths.get(args.get(1)), args.getThreads() > 1), mappings.getHash());
             }
-            if (entry.getName().endsWith(".class") && !entry.isDirectory()) {
-                val bytes = inputJar.getInputStream(entry);
-                val parser = new ClassParser(bytes, entry.getName());
-                val clazz = parser.parse();
-                val mappingOpt = mappings.stream().filter((mapping) -> mapping.originalName.equals(clazz.getClassName())).findFirst();
-                if (mappingOpt.isPresent()) {
-                    val mapping = mappingOpt.get();
-                    clazz.setFileName(mapping.targetName.replace('.', '/') + ".class");
-                    val pool = clazz.getConstantPool();
-                    pool.setConstant(((ConstantClass)pool.getConstant(clazz.getClassNameIndex())).getNameIndex(),
-                                     new ConstantUtf8(mapping.targetName.replace('.', '/')));
-                    var l = pool.getLength();
-                    {
-                        val stringIndices = new HashMap<String, Integer>();
-                        for (int i = 0; i < l; i++) {
-                            val constant = pool.getConstant(i);
-                            if (constant instanceof ConstantUtf8) {
-                                val utf8 = (ConstantUtf8) constant;
-                                stringIndices.put(utf8.getBytes(), i);
-                            }
-                        }
-                        for (val stringEntry : new HashMap<>(stringIndices).entrySet()) {
-                            var str = stringEntry.getKey();
-                            stringIndices.remove(str);
-                            for (val theClazz : mappings) {
-                                if (str.equals(theClazz.originalName)) {
-                                    str = theClazz.targetName;
-                                } else if (str.equals(theClazz.originalName.replace('.', '/'))) {
-                                    str = theClazz.targetName.replace('.', '/');
-                                } else {
-                                    str = str.replace("L" + theClazz.originalName.replace('.', '/') + ";",
-                                                      "L" + theClazz.targetName.replace('.', '/') + ";");
-                                }
-                            }
-                            pool.setConstant(stringEntry.getValue(), new ConstantUtf8(str));
-                            stringIndices.put(str, stringEntry.getValue());
-                        }
-                    }
-                    val poolManager = new PoolStringManager(pool);
-                    for (int i = 0; i < l; i++) {
-                        val constant = pool.getConstant(i);
-                        if (constant instanceof ConstantCP) {
-                            var cp = (ConstantCP) constant;
-                            var nat = (ConstantNameAndType) pool.getConstant(cp.getNameAndTypeIndex());
-                            var className = cp.getClass(pool);
-                            var cpName = nat.getName(pool);
-                            var cpSig = nat.getSignature(pool);
-                            for (val member: memberReplacements) {
-                                if ((member.parent.originalName.equals(className) ||
-                                     member.parent.targetName.equals(className)) &&
-                                    (member.signature.equals(cpSig) ||
-                                     member.getMappedSignature().equals(cpSig)) &&
-                                    (member.originalName.equals(cpName) ||
-                                     member.getTargetName().equals(cpName))) {
-                                    pool.setConstant(cp.getClassIndex(), new ConstantClass(poolManager.getUtf8Index(member.parent.targetName.replace('.', '/'))));
-                                    cp.setNameAndTypeIndex(poolManager.getNAT(member.getTargetName(), member.getMappedSignature()));
-                                }
-                            }
-                        }
-                    }
-                    for (val field: clazz.getFields()) {
-                        for (val mapField: mapping.fields) {
-                            if (mapField.originalName.equals(field.getName()) &&
-                                (mapField.signature.equals(field.getSignature()) || mapField.getMappedSignature().equals(field.getSignature()))) {
-                                field.setNameIndex(poolManager.getUtf8Index(mapField.getTargetName()));
-                                field.setSignatureIndex(poolManager.getUtf8Index(mapField.getMappedSignature()));
-                                field.isSynthetic(false);
-                            }
-                        }
-                    }
-                    for (val method: clazz.getMethods()) {
-                        for (val mapMethod: mapping.methods) {
-                            if (mapMethod.originalName.equals(method.getName()) &&
-                                (mapMethod.signature.equals(method.getSignature()) || mapMethod.getMappedSignature().equals(method.getSignature()))) {
-                                method.setNameIndex(poolManager.getUtf8Index(mapMethod.getTargetName()));
-                                method.setSignatureIndex(poolManager.getUtf8Index(mapMethod.getMappedSignature()));
-                                method.isSynthetic(false);
-                            }
-                        }
-                    }
-                    if (clazz.isEnum()) {
-                        val fields = clazz.getFields();
-                        for (int i = 0; i < fields.length; i++) {
-                            val field = fields[i];
-                            if (field.isPrivate() && field.isStatic() && field.getSignature().equals("[L" + mapping.targetName.replace('.', '/') + ";")) {
-                                field.isSynthetic(true);
-                                for (int j = i; j < fields.length - 1; j++) {
-                                    val b = fields[j + 1];
-                                    fields[j + 1] = fields[j];
-                                    fields[j] = b;
-                                }
-                                break;
-                            }
-                        }
-                        for (val method: clazz.getMethods()) {
-                            if ((method.getName().equals("values") && method.getSignature().equals("()[L" + mapping.targetName.replace('.', '/') + ";")) ||
-                                (method.getName().equals("valueOf") && method.getSignature().equals("(Ljava/lang/String;)L" + mapping.targetName.replace('.', '/') + ";")) ||
-                                (method.getName().equals("<init>"))) {
-                                method.isSynthetic(true);
-                            }
-                        }
-                    }
+        }
+        @Cleanup val libraries = new LibraryClassPath(LibraryClassPath.split(args.getOption("classpath", null)), false, args.getIntOption("classpath-cache", 4096));
+        val remapper = createRemapper(args, mappings, libraries);
+        val cache = createCache(args, Collections.singletonList(args.get(3)));
+        val executor = args.getThreads() > 1 ? Executors.newFixedThreadPool(args.getThreads()) : null;
+        try {
+            remapper.remapJar(Paths.get(args.get(1)), Paths.get(args.get(2)), executor, cache, metrics);
+        } finally {
+            if (executor != null) {
+                executor.shutdownNow();
+            }
+        }
+        if (cache != null) {
+            cache.evict();
+            Log.info(cache.report());
+        }
+    }
+
+    private static Remapper createRemapper(Arguments args, MappingSet mappings, ClassInfoProvider libraries) {
+        val resources = args.hasOption("resources") ? Arrays.asList(args.getOption("resources", "").split(",")) : Collections.<String>emptyList();
+        return new Remapper(mappings, args.hasOption("compact"), resources, libraries, isRawEngine(args));
+    }
+
+    private static boolean isRawEngine(Arguments args) {
+        val engine = args.getOption("engine", "bcel");
+        switch (engine) {
+            case "bcel":
+                return false;
+            case "raw":
+                return true;
+            default:
+                throw new IllegalArgumentException("Unknown engine: " + engine);
+        }
+    }
+
+    private static boolean isStreaming(Arguments args) {
+        return args.get(0).equals("convert") && (args.hasOption("stream") || args.get(1).equals("-") || args.get(2).equals("-"));
+    }
+
+    @SneakyThrows
+    private static void convertStream(Arguments args, Metrics metrics) {
+        val toStdout = args.get(2).equals("-");
+        if (toStdout) {
+            Log.setOutput(System.err);
+        }
+        MappingSet mappings;
+        try (val phase = metrics.phase("mappings")) {
+            mappings = Util.parseClasses(Paths.get(args.get(3)), null);
+        }
+        MessageDigest[] digests = null;
+        if (args.hasOption("reverse")) {
+            mappings = mappings.invert();
+        } else if (!mappings.hasDigests()) {
+            digests = new MessageDigest[Hashing.JAR_ALGORITHMS.length];
+            for (int i = 0; i < digests.length; i++) {
+                digests[i] = Hashing.newDigest(Hashing.JAR_ALGORITHMS[i]);
+            }
+        }
+        val classPath = new ArrayList<Path>();
+        if (!args.get(1).equals("-")) {
+            classPath.add(Paths.get(args.get(1)));
+        }
+        classPath.addAll(LibraryClassPath.split(args.getOption("classpath", null)));
+        @Cleanup val libraries = new LibraryClassPath(classPath, false, args.getIntOption("classpath-cache", 4096));
+        val remapper = createRemapper(args, mappings, libraries);
+        val cache = createCache(args, Collections.singletonList(args.get(3)));
+        InputStream input = new BufferedInputStream(args.get(1).equals("-") ? System.in : Files.newInputStream(Paths.get(args.get(1))), 1 << 16);
+        if (digests != null) {
+            for (val digest: digests) {
+                input = new DigestInputStream(input, digest);
+            }
+        }
+        @Cleanup val countedInput = new CountingInputStream(input);
+        @Cleanup val output = new CountingOutputStream(new BufferedOutputStream(toStdout ? System.out : Files.newOutputStream(Paths.get(args.get(2))), 1 << 16));
+        val executor = args.getThreads() > 1 ? Executors.newFixedThreadPool(args.getThreads()) : null;
+        try {
+            remapper.remapStream(countedInput, output, executor, cache, args.getIntOption("stream-buffer", (int) (Remapper.DEFAULT_STREAM_BUFFER >> 20)) * 1024L * 1024L, metrics);
+            output.flush();
+        } finally {
+            if (executor != null) {
+                executor.shutdownNow();
+            }
+        }
+        metrics.add("bytes.in", countedInput.getBytesRead());
+        metrics.add("bytes.out", output.getBytesWritten());
+        if (digests != null) {
+            val hashes = new byte[digests.length][];
+            for (int i = 0; i < digests.length; i++) {
+                hashes[i] = digests[i].digest();
+            }
+            Util.verifyHash(Hashing.format(hashes), mappings.getHash());
+        }
+        if (cache != null) {
+            cache.evict();
+            Log.info(cache.report());
+        }
+    }
+
+    @SneakyThrows
+    private static void batch(Arguments args, Metrics metrics) {
+        if (args.size() < 4) {
+            helpAndExit();
+        }
+        val mapfiles = Arrays.asList(args.get(1).split(File.pathSeparator));
+        val inputs = new ArrayList<Path>();
+        for (int i = 3; i < args.size(); i++) {
+            inputs.add(Paths.get(args.get(i)));
+        }
+        val classPath = new ArrayList<Path>(inputs);
+        classPath.addAll(LibraryClassPath.split(args.getOption("classpath", null)));
+        @Cleanup val libraries = new LibraryClassPath(classPath, false, args.getIntOption("classpath-cache", 4096));
+        Remapper remapper;
+        val hashes = new HashSet<String>();
+        boolean digests;
+        try (val phase = metrics.phase("mappings")) {
+            var mappings = new MappingSet();
+            for (val mapfile: mapfiles) {
+                val parsed = Util.parseClasses(Paths.get(mapfile), null);
+                if (parsed.getHash() != null) {
+                    hashes.add(parsed.getHash());
                 }
-                if (clazz.getSuperclassName().contains("Enum")) {
-                    System.out.println(clazz.getFileName());
+                val duplicates = mappings.merge(parsed);
+                if (duplicates > 0) {
+                    Log.warn(mapfile + " maps " + duplicates + " classes that an earlier mapfile already maps, using the earlier mappings.");
                 }
-                outputJar.putNextEntry(new ZipEntry(clazz.getFileName()));
-                clazz.dump(outputJar);
-                outputJar.closeEntry();
-            } else {
-                outputJar.putNextEntry(new ZipEntry(entry));
-                pipe(inputJar.getInputStream(entry), outputJar, entry.getSize());
-                outputJar.closeEntry();
             }
+            if (mapfiles.size() > 1) {
+                Util.mapSignatures(mappings);
+            }
+            digests = mappings.hasDigests();
+            if (args.hasOption("reverse")) {
+                mappings = mappings.invert();
+            }
+            remapper = createRemapper(args, mappings, libraries);
+        }
+        Log.info("Loaded " + remapper.getClassCount() + " class mappings from " + mapfiles.size() + " mapfiles.");
+        val cache = createCache(args, mapfiles);
+        val executor = args.getThreads() > 1 ? Executors.newFixedThreadPool(args.getThreads()) : null;
+        try {
+            new JarBatch(remapper, executor, cache, metrics, args.hasOption("reverse") ? null : hashes, digests).run(inputs, Paths.get(args.get(2)), args.getIntOption("jobs", 4));
+        } finally {
+            if (executor != null) {
+                executor.shutdownNow();
+            }
+        }
+        if (cache != null) {
+            cache.evict();
+            Log.info(cache.report());
         }
     }
 
-    private static void pipe(InputStream input, OutputStream output, long bytes) throws IOException {
-        byte[] buf = new byte[4096];
-        long remaining = bytes;
-        while (remaining > 0) {
-            int read = input.read(buf, 0, (int) Math.min(buf.length, remaining));
-            output.write(buf, 0, read);
-            remaining -= read;
+    private static ConvertCache createCache(Arguments args, List<String> mapfiles) throws IOException {
+        if (!args.hasOption("cache")) {
+            return null;
+        }
+        val fingerprint = new StringBuilder();
+        for (val mapfile: mapfiles) {
+            fingerprint.append(Hashing.bytesToHex(Hashing.digest(Paths.get(mapfile), false, "SHA-256")[0]));
+        }
+        if (args.hasOption("reverse")) {
+            fingerprint.append(":reverse");
+        }
+        if (args.hasOption("compact")) {
+            fingerprint.append(":compact");
+        }
+        if (args.hasOption("resources")) {
+            fingerprint.append(":").append(args.getOption("resources", ""));
         }
+        if (args.hasOption("classpath")) {
+            fingerprint.append(":classpath=").append(args.getOption("classpath", ""));
+        }
+        if (isRawEngine(args)) {
+            fingerprint.append(":raw");
+        }
+        return new ConvertCache(Paths.get(args.getOption("cache", "")), args.getIntOption("cache-size", 1024) * 1024L * 1024L, fingerprint.toString());
     }
 
     @SneakyThrows
-    private static void dump(String[] args) {
+    private static void watch(Arguments args) {
+        if (args.size() != 4) {
+            helpAndExit();
+        }
+        @Cleanup val libraries = new LibraryClassPath(LibraryClassPath.split(args.getOption("classpath", null)), false, args.getIntOption("classpath-cache", 4096));
+        val executor = args.getThreads() > 1 ? Executors.newFixedThreadPool(args.getThreads()) : null;
+        try {
+            new JarWatcher(Paths.get(args.get(1)), Paths.get(args.get(2)), Paths.get(args.get(3)), executor, args.getIntOption("debounce", 250),
+                           (mappings) -> createRemapper(args, args.hasOption("reverse") ? mappings.invert() : mappings, libraries)).run();
+        } finally {
+            if (executor != null) {
+                executor.shutdownNow();
+            }
+        }
+    }
 
-        val classMappings = new ArrayList<ClassMapping>();
-        @Cleanup val jar = new ZipFile(args[1]);
-        val entries = jar.entries();
-        while (entries.hasMoreElements()) {
-            val entry = entries.nextElement();
-            if (entry.getName().endsWith(".class") && !entry.isDirectory()) {
-                val bytes = jar.getInputStream(entry);
-                val parser = new ClassParser(bytes, entry.getName());
-                val clazz = parser.parse();
-                classMappings.add(ClassMapping.autoMap(clazz));
+    private static ClassMapping reuse(ClassMapping previous, ClassScanner scanner) {
+        val mapping = ClassMapping.reuse(previous, scanner.getSuperClassName(), scanner.getInterfaceNames());
+        for (val field: scanner.getFields()) {
+            val member = mapping.getField(field.name, field.signature);
+            if (member != null) {
+                member.setAccess(field.access);
             }
         }
-        for (val clazz: classMappings) {
-            clazz.processInheritance(classMappings);
+        for (val method: scanner.getMethods()) {
+            val member = mapping.getMethod(method.name, method.signature);
+            if (member != null) {
+                member.setAccess(method.access);
+            }
         }
-        @Cleanup val outF = new FileOutputStream(args[2]);
-        @Cleanup val out = new PrintStream(outF);
-        out.write(hash(args[1]).getBytes(StandardCharsets.UTF_8));
-        out.write('\n');
-        Util.serializeClasses(classMappings, out);
+        return mapping;
     }
 
-    private static String bytesToHex(byte[] hash) {
-        StringBuilder hexString = new StringBuilder(2 * hash.length);
-        for (byte b : hash) {
-            String hex = Integer.toHexString(0xff & b);
-            if (hex.length() == 1) {
-                hexString.append('0');
+    @SneakyThrows
+    private static void dump(Arguments args, Metrics metrics) {
+        MappingSet previous = null;
+        if (args.hasOption("previous")) {
+            try (val phase = metrics.phase("mappings")) {
+                previous = Util.parseClasses(Paths.get(args.getOption("previous", "")), null);
+            }
+        }
+        val names = NameGenerator.forName(args.getOption("names", "random"));
+        if (previous != null) {
+            Util.reserveIDs(previous, names);
+        }
+        val classes = new ArrayList<DumpedClass>();
+        @Cleanup val jar = new ZipFile(new File(args.get(1)));
+        @Cleanup val executor = new OrderedExecutor<DumpedClass>(args.getThreads(), classes::add);
+        for (val entry: Collections.list(jar.getEntries())) {
+            if (!entry.getName().endsWith(".class") || entry.isDirectory()) {
+                continue;
+            }
+            val previousMappings = previous;
+            executor.submit(() -> {
+                byte[] bytes;
+                try (val phase = metrics.phase("read")) {
+                    @Cleanup val input = jar.getInputStream(entry);
+                    bytes = IOUtils.toByteArray(input);
+                }
+                metrics.add("classBytes.in", bytes.length);
+                String digest = null;
+                if (args.hasOption("digests")) {
+                    try (val phase = metrics.phase("digest")) {
+                        digest = Hashing.classDigest(bytes);
+                    }
+                }
+                val crc = entry.getCrc();
+                val unchanged = previousMappings == null ? null : previousMappings.getByInternalName(entry.getName().substring(0, entry.getName().length() - 6));
+                if (unchanged != null && crc >= 0 && unchanged.getCrc() == crc) {
+                    return new DumpedClass(null, reuse(unchanged, new ClassScanner(bytes)), crc, digest);
+                }
+                try (val phase = metrics.phase("parse")) {
+                    return new DumpedClass(new ClassParser(new ByteArrayInputStream(bytes), entry.getName()).parse(), null, crc, digest);
+                }
+            });
+        }
+        executor.finish();
+        classes.sort(Comparator.comparing(DumpedClass::getName));
+        val classMappings = new MappingSet();
+        int reused = 0;
+        try (val phase = metrics.phase("automap")) {
+            for (val dumped: classes) {
+                var mapping = dumped.mapping;
+                if (mapping == null) {
+                    mapping = ClassMapping.autoMap(dumped.clazz, previous == null ? null : previous.getByOriginalName(dumped.clazz.getClassName()), names);
+                } else {
+                    reused++;
+                }
+                mapping.setCrc(dumped.crc);
+                mapping.setDigest(dumped.digest);
+                classMappings.add(mapping);
+                metrics.add("members", mapping.fields.size() + mapping.methods.size());
             }
-            hexString.append(hex);
         }
-        return hexString.toString();
+        metrics.add("classes", classes.size());
+        metrics.add("classes.reused", reused);
+        if (previous != null) {
+            Log.info("Reused " + reused + " unchanged classes, remapped " + (classes.size() - reused) + " new or changed classes.");
+        }
+        @Cleanup val libraries = LibraryClassPath.parse(args.getOption("classpath", null), args.getIntOption("classpath-cache", 4096));
+        try (val phase = metrics.phase("inheritance")) {
+            new ClassHierarchy(classMappings, libraries).propagateMethodNames();
+        }
+        metrics.add("libraryClasses", libraries.getLoadedCount());
+        Log.info("Loaded " + libraries.getLoadedCount() + " library classes for inheritance resolution.");
+        String hash;
+        try (val phase = metrics.phase("hash")) {
+            hash = Hashing.hash(Paths.get(args.get(1)), args.getThreads() > 1);
+        }
+        try (val phase = metrics.phase("write")) {
+            writeMappings(args, classMappings, hash, args.get(2));
+        }
+    }
+
+    @SneakyThrows
+    private static void invert(Arguments args) {
+        if (args.size() != 3) {
+            helpAndExit();
+        }
+        writeMappings(args, Util.parseClasses(Paths.get(args.get(1)), null).invert(), null, args.get(2));
     }
 
     @SneakyThrows
-    private static String digest(String algo, byte[] data) {
-        return bytesToHex(MessageDigest.getInstance(algo).digest(data));
+    private static void compose(Arguments args) {
+        if (args.size() != 4) {
+            helpAndExit();
+        }
+        val first = Util.parseClasses(Paths.get(args.get(1)), null);
+        val second = Util.parseClasses(Paths.get(args.get(2)), null);
+        writeMappings(args, first.compose(second), null, args.get(3));
     }
 
     @SneakyThrows
-    private static String hash(String file) {
-        byte[] data = Files.readAllBytes(Paths.get(file));
-        return "HASH: " + "MD5 " + digest("MD5", data) + ";SHA-256 " + digest("SHA-256", data) + ";SHA-512 " + digest("SHA-512", data);
+    private static void retrace(Arguments args) {
+        if (args.size() < 2 || args.size() > 4) {
+            helpAndExit();
+        }
+        val retracer = new Retracer(Util.parseClasses(Paths.get(args.get(1)), null));
+        val input = isStandardStream(args, 2) ? System.in : Files.newInputStream(Paths.get(args.get(2)));
+        try {
+            val output = isStandardStream(args, 3) ? System.out : Files.newOutputStream(Paths.get(args.get(3)));
+            try {
+                retracer.retrace(input, output);
+            } finally {
+                if (output != System.out) {
+                    output.close();
+                }
+            }
+        } finally {
+            if (input != System.in) {
+                input.close();
+            }
+        }
+    }
+
+    private static boolean isStandardStream(Arguments args, int index) {
+        return args.size() <= index || args.get(index).equals("-");
+    }
+
+    private static void writeMappings(Arguments args, MappingSet mappings, String hash, String file) throws IOException {
+        OutputStream outF = new FileOutputStream(file);
+        if (args.getOption("compress", file.endsWith(".gz") ? "gzip" : "none").equals("gzip")) {
+            outF = new GZIPOutputStream(outF, 65536);
+        }
+        if (args.getOption("format", "text").equals("binary")) {
+            @Cleanup val out = outF;
+            BinaryMappings.write(mappings, hash, out);
+            return;
+        }
+        @Cleanup val writer = new MappingWriter(outF);
+        if (hash != null) {
+            writer.writeHash(hash);
+        }
+        writer.write(mappings);
+    }
+
+    @RequiredArgsConstructor
+    private static class DumpedClass {
+        final JavaClass clazz;
+        final ClassMapping mapping;
+        final long crc;
+        final String digest;
+
+        String getName() {
+            return clazz != null ? clazz.getClassName() : mapping.originalName;
+        }
     }
 
     public static void helpAndExit() {
         System.out.println("Usage:\n" +
-                           "dump <jarfile> -- Dumps all of the classes of a jar file into an autogenerated mapfile.\n" +
-                           "convert <source jar> <target jar> <mapfile>\n");
+                           "dump <jarfile> <mapfile> -- Dumps all of the classes of a jar file into an autogenerated mapfile.\n" +
+                           "convert <source jar> <target jar> <mapfile>\n" +
+                           "invert <mapfile> <output mapfile> -- Writes the reverse (target to original) mappings.\n" +
+                           "compose <first mapfile> <second mapfile> <output mapfile> -- Chains two mapfiles: A to B and B to C gives A to C.\n" +
+                           "retrace <mapfile> [input log] [output log] -- Translates remapped names in a log or stack trace back to the original names. Defaults to stdin and stdout.\n" +
+                           "batch <mapfiles> <output directory> <source jar>... -- Converts many jars in one run. The mapfiles (separated by '" + File.pathSeparator + "') are merged into one index, so references between the jars are remapped too. Each jar is checked against the hashes of the mapfiles, jars that match none of them are converted with a warning.\n" +
+                           "watch <source jar> <target jar> <mapfile> -- Keeps the mappings loaded and converts again whenever the source jar or the mapfile changes. Accepts the same options as convert.\n" +
+                           "Options:\n" +
+                           "--threads=<n> -- Number of classes processed in parallel. Defaults to the number of available cores.\n" +
+                           "--jobs=<n> -- batch: number of jars converted at the same time. Defaults to 4.\n" +
+                           "--format=<text|binary> -- Mapfile format written by dump. convert detects the format automatically.\n" +
+                           "--names=<random|counter|hash> -- dump: how new Class_/field_/method_ numbers are chosen. counter numbers them in class name order, hash derives them from the original names so they stay stable between dumps. Defaults to random.\n" +
+                           "--compress=<none|gzip> -- Compress written mapfiles. Defaults to gzip for file names ending in .gz, none otherwise. Compressed mapfiles are detected automatically when read.\n" +
+                           "--digests -- dump: record a " + Hashing.CLASS_ALGORITHM + " digest of every class. convert then checks only the classes it remaps instead of the hash of the whole jar.\n" +
+                           "--previous=<mapfile> -- Incremental dump: reuse the mappings of classes that did not change since the given mapfile.\n" +
+                           "--reverse -- convert: apply the mapfile backwards, turning a converted jar back into the original names.\n" +
+                           "--stream -- convert: read the source jar as a stream instead of opening it as a file. Implied when the source or target jar is '-' (stdin / stdout). Entries are buffered while they are converted in parallel, at most 4 per thread and at most --stream-buffer MB of them; a single entry larger than that is still read into memory whole. Resources that are not remapped and are larger than 1 MB or of unknown size are copied through without buffering.\n" +
+                           "--stream-buffer=<MB> -- convert: maximum size of the entries buffered while streaming. Defaults to " + (Remapper.DEFAULT_STREAM_BUFFER >> 20) + ".\n" +
+                           "--engine=<bcel|raw> -- convert: how classes are rewritten. bcel parses every class into objects, raw patches the constant pool and member names in place and copies everything else as is. Defaults to bcel.\n" +
+                           "--compact -- convert: drop constant pool entries that are no longer referenced after remapping.\n" +
+                           "--resources=<globs> -- convert: comma separated globs of text resources (e.g. META-INF/*.xml,**/*.properties) in which class names are remapped. META-INF/services files are always remapped.\n" +
+                           "--cache=<directory> -- convert: reuse remapped classes from earlier runs with the same mapfile.\n" +
+                           "--cache-size=<MB> -- Maximum size of the convert cache, least recently used entries are evicted first. Defaults to 1024.\n" +
+                           "--classpath=<jars> -- dump: library jars (separated by '" + File.pathSeparator + "') whose methods keep their names when overridden. convert: extra jars searched for the superclasses of inherited member references.\n" +
+                           "--classpath-cache=<n> -- Maximum number of library classes kept in memory. Defaults to 4096.\n" +
+                           "--report=<file> -- Write phase timings, counters and byte totals of the run as JSON.\n" +
+                           "--debounce=<ms> -- watch: wait for this long without further changes before converting. Defaults to 250.\n" +
+                           "--jmx -- Expose the same metrics as an MXBean while the command runs.\n" +
+                           "--log=<error|warn|info|debug> -- Log level. debug prints every inherited method and remapped enum. Defaults to info.\n");
         System.exit(0);
     }
 }
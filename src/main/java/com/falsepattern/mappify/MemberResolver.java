@@ -0,0 +1,118 @@
+package com.falsepattern.mappify;
+
+import com.falsepattern.mappify.mapping.ClassInfoProvider;
+import com.falsepattern.mappify.mapping.MappingSet;
+import com.falsepattern.mappify.mapping.MemberMapping;
+import com.falsepattern.mappify.mapping.Util;
+import lombok.val;
+import org.apache.bcel.Const;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class MemberResolver {
+    private final Map<String, MemberMapping> members;
+    private final ClassInfoProvider classes;
+    private final Map<String, Optional<MemberMapping>> inherited = new ConcurrentHashMap<>();
+
+    private MemberResolver(Map<String, MemberMapping> members, ClassInfoProvider classes) {
+        this.members = members;
+        this.classes = classes;
+    }
+
+    public static MemberResolver create(MappingSet mappings) {
+        val members = new HashMap<String, MemberMapping>();
+        for (val clazz: mappings.getClasses()) {
+            for (val member: clazz.fields) {
+                members.put(key(clazz.originalName, false, member.originalName, member.signature), member);
+            }
+            for (val member: clazz.methods) {
+                members.put(key(clazz.originalName, true, member.originalName, member.signature), member);
+            }
+        }
+        for (val clazz: mappings.getClasses()) {
+            for (val member: clazz.fields) {
+                members.putIfAbsent(key(clazz.targetName, false, member.getTargetName(), mappedSignature(mappings, member)), member);
+            }
+            for (val member: clazz.methods) {
+                members.putIfAbsent(key(clazz.targetName, true, member.getTargetName(), mappedSignature(mappings, member)), member);
+            }
+        }
+        return new MemberResolver(members, ClassInfoProvider.NONE);
+    }
+
+    public MemberResolver withClasses(ClassInfoProvider classes) {
+        return new MemberResolver(members, classes);
+    }
+
+    public boolean hasClasses() {
+        return classes != ClassInfoProvider.NONE;
+    }
+
+    public boolean isDeclared(String owner, boolean method, String name, String descriptor) {
+        return members.containsKey(key(owner, method, name, descriptor));
+    }
+
+    public MemberMapping resolve(String owner, boolean method, String name, String descriptor) {
+        val key = key(owner, method, name, descriptor);
+        val member = members.get(key);
+        if (member != null || !hasClasses()) {
+            return member;
+        }
+        return inherited.computeIfAbsent(key, (k) -> Optional.ofNullable(walk(owner, method, name, descriptor))).orElse(null);
+    }
+
+    public MemberMapping resolveOverride(String superName, String[] interfaces, String name, String descriptor) {
+        if (superName != null) {
+            val member = resolve(superName, true, name, descriptor);
+            if (member != null) {
+                return member;
+            }
+        }
+        for (val face: interfaces) {
+            val member = resolve(face, true, name, descriptor);
+            if (member != null) {
+                return member;
+            }
+        }
+        return null;
+    }
+
+    private MemberMapping walk(String owner, boolean method, String name, String descriptor) {
+        val visited = new HashSet<String>();
+        val queue = new ArrayDeque<String>();
+        queue.add(owner);
+        while (!queue.isEmpty()) {
+            val current = queue.poll();
+            if (!visited.add(current)) {
+                continue;
+            }
+            val member = members.get(key(current, method, name, descriptor));
+            if (member != null && (member.getAccess() & Const.ACC_PRIVATE) == 0) {
+                return member;
+            }
+            val info = classes.getClassInfo(current);
+            if (info == null) {
+                continue;
+            }
+            if (info.superName != null) {
+                queue.add(info.superName);
+            }
+            Collections.addAll(queue, info.interfaces);
+        }
+        return null;
+    }
+
+    private static String mappedSignature(MappingSet mappings, MemberMapping member) {
+        return member.getMappedSignature() == null ? Util.mapSignature(mappings, member.signature) : member.getMappedSignature();
+    }
+
+    private static String key(String owner, boolean method, String name, String descriptor) {
+        return owner + (method ? '#' : '.') + name + ' ' + descriptor;
+    }
+}
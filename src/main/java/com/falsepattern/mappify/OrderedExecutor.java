@@ -0,0 +1,98 @@
+package com.falsepattern.mappify;
+
+import lombok.val;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+
+public class OrderedExecutor<T> implements AutoCloseable {
+    private final ExecutorService executor;
+    private final boolean owned;
+    private final int window;
+    private final Sink<T> sink;
+    private final long byteBudget;
+    private final Deque<Future<T>> pending = new ArrayDeque<>();
+    private final Deque<Long> pendingSizes = new ArrayDeque<>();
+    private long pendingBytes;
+
+    public OrderedExecutor(int threads, Sink<T> sink) {
+        this.executor = threads > 1 ? Executors.newFixedThreadPool(threads) : null;
+        this.owned = true;
+        this.window = Math.max(1, threads * 4);
+        this.byteBudget = Long.MAX_VALUE;
+        this.sink = sink;
+    }
+
+    public OrderedExecutor(ExecutorService executor, Sink<T> sink) {
+        this(executor, Long.MAX_VALUE, sink);
+    }
+
+    public OrderedExecutor(ExecutorService executor, long byteBudget, Sink<T> sink) {
+        this.executor = executor;
+        this.owned = false;
+        this.window = Math.max(1, poolSize(executor) * 4);
+        this.byteBudget = byteBudget;
+        this.sink = sink;
+    }
+
+    private static int poolSize(ExecutorService executor) {
+        if (executor instanceof ThreadPoolExecutor) {
+            return ((ThreadPoolExecutor) executor).getMaximumPoolSize();
+        }
+        return Runtime.getRuntime().availableProcessors();
+    }
+
+    public void submit(Callable<T> task) throws Exception {
+        submit(task, 0);
+    }
+
+    public void submit(Callable<T> task, long size) throws Exception {
+        if (executor == null) {
+            sink.accept(task.call());
+            return;
+        }
+        pending.add(executor.submit(task));
+        pendingSizes.add(size);
+        pendingBytes += size;
+        while (pending.size() > window || (pendingBytes > byteBudget && !pending.isEmpty())) {
+            drainOne();
+        }
+    }
+
+    public void finish() throws Exception {
+        while (!pending.isEmpty()) {
+            drainOne();
+        }
+    }
+
+    private void drainOne() throws Exception {
+        pendingBytes -= pendingSizes.poll();
+        try {
+            sink.accept(pending.poll().get());
+        } catch (ExecutionException e) {
+            val cause = e.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public void close() {
+        pending.forEach((future) -> future.cancel(true));
+        if (executor != null && owned) {
+            executor.shutdownNow();
+        }
+    }
+
+    public interface Sink<T> {
+        void accept(T value) throws Exception;
+    }
+}
@@ -7,17 +7,23 @@ import org.apache.bcel.classfile.ConstantNameAndType;
 import org.apache.bcel.classfile.ConstantPool;
 import org.apache.bcel.classfile.ConstantUtf8;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 public class PoolStringManager {
     private final ConstantPool pool;
     private final Map<String, Integer> utf8Map = new HashMap<>();
     private final Map<Integer, Map<Integer, Integer>> natMap = new HashMap<>();
+    private final List<Constant> added = new ArrayList<>();
+    private final int baseLength;
+
     public PoolStringManager(ConstantPool pool) {
         this.pool = pool;
         val l = pool.getLength();
+        this.baseLength = l;
         for (int i = 0; i < l; i++) {
             val constant = pool.getConstant(i);
             if (constant instanceof ConstantUtf8) {
@@ -31,10 +37,20 @@ public class PoolStringManager {
     }
 
     private int appendToPool(Constant constant) {
-        val i = pool.getLength();
-        pool.setConstantPool(Arrays.copyOf(pool.getConstantPool(), i + 1));
-        pool.setConstant(i, constant);
-        return i;
+        added.add(constant);
+        return baseLength + added.size() - 1;
+    }
+
+    public void finish() {
+        if (added.isEmpty()) {
+            return;
+        }
+        val constants = Arrays.copyOf(pool.getConstantPool(), baseLength + added.size());
+        for (int i = 0; i < added.size(); i++) {
+            constants[baseLength + i] = added.get(i);
+        }
+        pool.setConstantPool(constants);
+        added.clear();
     }
 
     public int getUtf8Index(String str) {
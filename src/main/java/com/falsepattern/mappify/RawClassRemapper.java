@@ -0,0 +1,280 @@
+package com.falsepattern.mappify;
+
+import com.falsepattern.mappify.mapping.ClassMapping;
+import com.falsepattern.mappify.mapping.MappingSet;
+import com.falsepattern.mappify.mapping.MemberMapping;
+import com.falsepattern.mappify.mapping.SignatureRemapper;
+import com.falsepattern.mappify.report.Metrics;
+import lombok.val;
+import lombok.var;
+import org.apache.bcel.Const;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class RawClassRemapper {
+    private final MappingSet mappings;
+    private final SignatureRemapper remapper;
+
+    public RawClassRemapper(MappingSet mappings) {
+        this.mappings = mappings;
+        this.remapper = new SignatureRemapper(mappings);
+    }
+
+    public byte[] remap(byte[] data, MemberResolver members, Metrics metrics) throws IOException {
+        val scanner = new ClassScanner(data);
+        val mapping = mappings.getByInternalName(scanner.getClassName());
+        val l = scanner.getPoolCount();
+        int utf8Rewritten = 0;
+        int referencesRewritten = 0;
+        int declarationsRewritten = 0;
+        val owners = new ClassMapping[l];
+        val references = new MemberMapping[l];
+        for (int i = 1; i < l; i++) {
+            val tag = scanner.getTag(i);
+            if (tag == Const.CONSTANT_Fieldref || tag == Const.CONSTANT_Methodref || tag == Const.CONSTANT_InterfaceMethodref) {
+                val offset = scanner.getOffset(i);
+                val owner = scanner.getClassName(scanner.readUnsignedShort(offset + 1)).replace('/', '.');
+                val nat = scanner.getOffset(scanner.readUnsignedShort(offset + 3));
+                val member = members.resolve(owner, tag != Const.CONSTANT_Fieldref, scanner.getUtf8(scanner.readUnsignedShort(nat + 1)), scanner.getUtf8(scanner.readUnsignedShort(nat + 3)));
+                if (member != null) {
+                    owners[i] = mappings.getByOriginalName(owner);
+                    references[i] = member;
+                }
+            }
+        }
+        var offset = scanner.getPoolEnd() + 8 + scanner.readUnsignedShort(scanner.getPoolEnd() + 6) * 2;
+        val fields = readMembers(scanner, offset);
+        offset = fields.isEmpty() ? offset + 2 : fields.get(fields.size() - 1).end;
+        val methods = readMembers(scanner, offset);
+        val attributes = methods.isEmpty() ? offset + 2 : methods.get(methods.size() - 1).end;
+        for (int i = 0; mapping != null && i < fields.size(); i++) {
+            val field = fields.get(i);
+            field.mapping = mapping.getField(field.name, field.signature);
+        }
+        for (val method: methods) {
+            if (mapping != null) {
+                method.mapping = mapping.getMethod(method.name, method.signature);
+            } else if (members.hasClasses() && isOverridable(method.access, method.name)) {
+                method.mapping = members.resolveOverride(scanner.getSuperClassName(), scanner.getInterfaceNames(), method.name, method.signature);
+            }
+        }
+        val strings = new String[l];
+        for (int i = 1; i < l; i++) {
+            if (scanner.getTag(i) == Const.CONSTANT_Utf8) {
+                val str = scanner.getUtf8(i);
+                val remapped = remapper.remap(str);
+                strings[i] = remapped;
+                if (!remapped.equals(str)) {
+                    utf8Rewritten++;
+                }
+            }
+        }
+        if (mapping != null) {
+            strings[scanner.readUnsignedShort(scanner.getOffset(scanner.readUnsignedShort(scanner.getPoolEnd() + 2)) + 1)] = mapping.getInternalTargetName();
+        }
+        val pool = new Pool(scanner, strings);
+        val classNames = new int[l];
+        val nats = new int[l];
+        for (int i = 1; i < l; i++) {
+            val member = references[i];
+            if (member != null) {
+                if (owners[i] != null) {
+                    classNames[scanner.readUnsignedShort(scanner.getOffset(i) + 1)] = pool.getUtf8Index(owners[i].getInternalTargetName());
+                }
+                nats[i] = pool.getNAT(member.getTargetName(), member.getMappedSignature());
+                referencesRewritten++;
+            }
+        }
+        for (val field: fields) {
+            declarationsRewritten += field.rewrite(pool, strings);
+        }
+        for (val method: methods) {
+            declarationsRewritten += method.rewrite(pool, strings);
+        }
+        if (metrics != null) {
+            val growth = pool.added.size();
+            metrics.add("pool.utf8Rewritten", utf8Rewritten);
+            metrics.add("pool.referencesRewritten", referencesRewritten);
+            metrics.add("pool.entriesAdded", growth);
+            metrics.max("pool.peakGrowth", growth);
+            metrics.add("members.declarationsRewritten", declarationsRewritten);
+        }
+        if (mapping != null && (scanner.getAccessFlags() & Const.ACC_ENUM) != 0) {
+            for (int i = 0; i < fields.size(); i++) {
+                val field = fields.get(i);
+                if ((field.access & Const.ACC_PRIVATE) != 0 && (field.access & Const.ACC_STATIC) != 0 && field.signature.equals("[L" + mapping.getInternalTargetName() + ";")) {
+                    field.access |= Const.ACC_SYNTHETIC;
+                    fields.add(fields.remove(i));
+                    break;
+                }
+            }
+            for (val method: methods) {
+                if ((method.name.equals("values") && method.signature.equals("()[L" + mapping.getInternalTargetName() + ";")) ||
+                    (method.name.equals("valueOf") && method.signature.equals("(Ljava/lang/String;)L" + mapping.getInternalTargetName() + ";")) ||
+                    (method.name.equals("<init>"))) {
+                    method.access |= Const.ACC_SYNTHETIC;
+                }
+            }
+        }
+        val output = new ByteArrayOutputStream(data.length + 256);
+        val out = new DataOutputStream(output);
+        out.write(data, 0, 8);
+        out.writeShort(l + pool.added.size());
+        for (int i = 1; i < l; i++) {
+            val start = scanner.getOffset(i);
+            if (start == 0) {
+                continue;
+            }
+            val tag = scanner.getTag(i);
+            if (tag == Const.CONSTANT_Utf8 && !strings[i].equals(scanner.getUtf8(i))) {
+                out.writeByte(tag);
+                out.writeUTF(strings[i]);
+            } else if (classNames[i] != 0) {
+                out.writeByte(tag);
+                out.writeShort(classNames[i]);
+            } else if (nats[i] != 0) {
+                out.writeByte(tag);
+                out.writeShort(scanner.readUnsignedShort(start + 1));
+                out.writeShort(nats[i]);
+            } else {
+                out.write(data, start, entryEnd(scanner, i) - start);
+            }
+        }
+        for (val constant: pool.added) {
+            if (constant instanceof String) {
+                out.writeByte(Const.CONSTANT_Utf8);
+                out.writeUTF((String) constant);
+            } else {
+                val nat = (int[]) constant;
+                out.writeByte(Const.CONSTANT_NameAndType);
+                out.writeShort(nat[0]);
+                out.writeShort(nat[1]);
+            }
+        }
+        val membersStart = scanner.getPoolEnd() + 8 + scanner.readUnsignedShort(scanner.getPoolEnd() + 6) * 2;
+        out.write(data, scanner.getPoolEnd(), membersStart - scanner.getPoolEnd());
+        writeMembers(out, data, fields);
+        writeMembers(out, data, methods);
+        out.write(data, attributes, data.length - attributes);
+        out.flush();
+        return output.toByteArray();
+    }
+
+    private static List<Member> readMembers(ClassScanner scanner, int offset) {
+        val count = scanner.readUnsignedShort(offset);
+        offset += 2;
+        val result = new ArrayList<Member>(count);
+        for (int i = 0; i < count; i++) {
+            val member = new Member(offset, scanner.readUnsignedShort(offset),
+                                    scanner.readUnsignedShort(offset + 2), scanner.readUnsignedShort(offset + 4));
+            member.name = scanner.getUtf8(member.nameIndex);
+            member.signature = scanner.getUtf8(member.signatureIndex);
+            offset += 6;
+            val attributes = scanner.readUnsignedShort(offset);
+            offset += 2;
+            for (int j = 0; j < attributes; j++) {
+                offset += 6 + scanner.readInt(offset + 2);
+            }
+            member.end = offset;
+            result.add(member);
+        }
+        return result;
+    }
+
+    private static void writeMembers(DataOutputStream out, byte[] data, List<Member> members) throws IOException {
+        out.writeShort(members.size());
+        for (val member: members) {
+            out.writeShort(member.access);
+            out.writeShort(member.nameIndex);
+            out.writeShort(member.signatureIndex);
+            out.write(data, member.offset + 6, member.end - member.offset - 6);
+        }
+    }
+
+    private static int entryEnd(ClassScanner scanner, int index) {
+        for (int i = index + 1; i < scanner.getPoolCount(); i++) {
+            if (scanner.getOffset(i) != 0) {
+                return scanner.getOffset(i);
+            }
+        }
+        return scanner.getPoolEnd();
+    }
+
+    private static boolean isOverridable(int access, String name) {
+        return (access & (Const.ACC_PRIVATE | Const.ACC_STATIC)) == 0 && !name.startsWith("<");
+    }
+
+    private static class Member {
+        final int offset;
+        int access;
+        int nameIndex;
+        int signatureIndex;
+        int end;
+        String name;
+        String signature;
+        MemberMapping mapping;
+
+        Member(int offset, int access, int nameIndex, int signatureIndex) {
+            this.offset = offset;
+            this.access = access;
+            this.nameIndex = nameIndex;
+            this.signatureIndex = signatureIndex;
+        }
+
+        int rewrite(Pool pool, String[] strings) {
+            if (mapping == null) {
+                name = strings[nameIndex];
+                signature = strings[signatureIndex];
+                return 0;
+            }
+            name = mapping.getTargetName();
+            signature = mapping.getMappedSignature();
+            nameIndex = pool.getUtf8Index(name);
+            signatureIndex = pool.getUtf8Index(signature);
+            access &= ~Const.ACC_SYNTHETIC;
+            return 1;
+        }
+    }
+
+    private static class Pool {
+        private final Map<String, Integer> utf8Map = new HashMap<>();
+        private final Map<Integer, Map<Integer, Integer>> natMap = new HashMap<>();
+        private final List<Object> added = new ArrayList<>();
+        private final int baseLength;
+
+        Pool(ClassScanner scanner, String[] strings) {
+            baseLength = scanner.getPoolCount();
+            for (int i = 1; i < baseLength; i++) {
+                val tag = scanner.getTag(i);
+                if (tag == Const.CONSTANT_Utf8) {
+                    utf8Map.put(strings[i], i);
+                } else if (tag == Const.CONSTANT_NameAndType) {
+                    val offset = scanner.getOffset(i);
+                    natMap.computeIfAbsent(scanner.readUnsignedShort(offset + 1), k -> new HashMap<>()).put(scanner.readUnsignedShort(offset + 3), i);
+                }
+            }
+        }
+
+        private int append(Object constant) {
+            added.add(constant);
+            return baseLength + added.size() - 1;
+        }
+
+        int getUtf8Index(String str) {
+            return utf8Map.computeIfAbsent(str, k -> append(str));
+        }
+
+        int getNAT(String name, String type) {
+            val iName = getUtf8Index(name);
+            val iType = getUtf8Index(type);
+            return natMap.computeIfAbsent(iName, k -> new HashMap<>())
+                         .computeIfAbsent(iType, k -> append(new int[]{iName, iType}));
+        }
+    }
+}
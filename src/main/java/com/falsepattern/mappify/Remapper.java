@@ -0,0 +1,381 @@
+package com.falsepattern.mappify;
+
+import com.falsepattern.mappify.mapping.ClassInfoProvider;
+import com.falsepattern.mappify.mapping.ClassMapping;
+import com.falsepattern.mappify.mapping.MappingSet;
+import com.falsepattern.mappify.mapping.Util;
+import com.falsepattern.mappify.report.Log;
+import com.falsepattern.mappify.report.Metrics;
+import lombok.Cleanup;
+import lombok.val;
+import lombok.var;
+import org.apache.bcel.classfile.ClassParser;
+import org.apache.bcel.classfile.JavaClass;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveInputStream;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.apache.commons.compress.archivers.zip.ZipFile;
+import org.apache.commons.compress.utils.IOUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.zip.ZipEntry;
+
+public class Remapper {
+    private static final int STREAM_THRESHOLD = 1 << 20;
+    public static final long DEFAULT_STREAM_BUFFER = 16L << 20;
+
+    private final MappingSet mappings;
+    private final ClassRemapper remapper;
+    private final ResourceRemapper resources;
+    private final boolean compact;
+    private final ClassInfoProvider libraries;
+    private final MemberResolver members;
+    private final RawClassRemapper raw;
+
+    public Remapper(MappingSet mappings) {
+        this(mappings, false);
+    }
+
+    public Remapper(MappingSet mappings, boolean compact) {
+        this(mappings, compact, Collections.emptyList());
+    }
+
+    public Remapper(MappingSet mappings, boolean compact, List<String> resourceGlobs) {
+        this(mappings, compact, resourceGlobs, ClassInfoProvider.NONE);
+    }
+
+    public Remapper(MappingSet mappings, boolean compact, List<String> resourceGlobs, ClassInfoProvider libraries) {
+        this(mappings, compact, resourceGlobs, libraries, false);
+    }
+
+    public Remapper(MappingSet mappings, boolean compact, List<String> resourceGlobs, ClassInfoProvider libraries, boolean rawEngine) {
+        this.mappings = mappings;
+        this.remapper = new ClassRemapper(mappings);
+        this.resources = new ResourceRemapper(mappings, resourceGlobs);
+        this.compact = compact;
+        this.libraries = libraries;
+        this.members = libraries == ClassInfoProvider.NONE ? remapper.getMembers() : remapper.getMembers().withClasses(libraries);
+        this.raw = rawEngine ? new RawClassRemapper(mappings) : null;
+    }
+
+    public static Remapper load(Path mapfile) throws IOException {
+        return load(mapfile, null);
+    }
+
+    public static Remapper load(Path mapfile, String jarHash) throws IOException {
+        return new Remapper(Util.parseClasses(mapfile, jarHash));
+    }
+
+    public int getClassCount() {
+        return mappings.size();
+    }
+
+    public String remapClassName(String internalName) {
+        return mappings.translateClass(internalName);
+    }
+
+    public boolean isMapped(byte[] classBytes) {
+        return mappings.getByInternalName(new ClassScanner(classBytes).getClassName()) != null;
+    }
+
+    public boolean needsRemap(byte[] classBytes) {
+        return needsRemap(classBytes, members);
+    }
+
+    private boolean needsRemap(byte[] classBytes, MemberResolver members) {
+        return remapper.references(new ClassScanner(classBytes), members);
+    }
+
+    public byte[] remapResource(String entryName, byte[] data) {
+        return resources.isRemapped(entryName) ? resources.remap(data) : data;
+    }
+
+    public String remapResourceName(String entryName) {
+        return resources.remapName(entryName);
+    }
+
+    public byte[] remapClass(InputStream classFile) throws IOException {
+        return remapClass(IOUtils.toByteArray(classFile));
+    }
+
+    public byte[] remapClass(byte[] classBytes) throws IOException {
+        if (!needsRemap(classBytes)) {
+            return classBytes;
+        }
+        val bytes = remap(classBytes, "class", members, null);
+        return compact ? ClassCompactor.compact(bytes) : bytes;
+    }
+
+    private byte[] remap(byte[] classBytes, String fileName, MemberResolver members, Metrics metrics) throws IOException {
+        if (raw != null) {
+            val scanner = new ClassScanner(classBytes);
+            val mapping = mappings.getByInternalName(scanner.getClassName());
+            verify(mapping, classBytes, metrics);
+            if (mapping == null && metrics != null) {
+                metrics.add("classes.referencing", 1);
+            }
+            val superName = scanner.getSuperClassName();
+            if (superName != null && superName.contains("Enum")) {
+                Log.debug(() -> fileName(fileName, scanner));
+            }
+            try (val phase = metrics == null ? null : metrics.phase("remap")) {
+                return raw.remap(classBytes, members, metrics);
+            }
+        }
+        JavaClass clazz;
+        try (val phase = metrics == null ? null : metrics.phase("parse")) {
+            clazz = new ClassParser(new ByteArrayInputStream(classBytes), fileName).parse();
+        }
+        verify(mappings.getByOriginalName(clazz.getClassName()), classBytes, metrics);
+        try (val phase = metrics == null ? null : metrics.phase("remap")) {
+            if (!remapper.remap(clazz, members, metrics) && metrics != null) {
+                metrics.add("classes.referencing", 1);
+            }
+        }
+        if (clazz.getSuperclassName().contains("Enum")) {
+            Log.debug(clazz::getFileName);
+        }
+        try (val phase = metrics == null ? null : metrics.phase("write")) {
+            val output = new ByteArrayOutputStream(classBytes.length + 256);
+            clazz.dump(output);
+            return output.toByteArray();
+        }
+    }
+
+    private String fileName(String entryName, ClassScanner scanner) {
+        val mapping = mappings.getByInternalName(scanner.getClassName());
+        return mapping == null ? entryName : mapping.getInternalTargetName() + ".class";
+    }
+
+    private static void verify(ClassMapping mapping, byte[] classBytes, Metrics metrics) {
+        if (mapping == null || mapping.getDigest() == null) {
+            return;
+        }
+        try (val phase = metrics == null ? null : metrics.phase("verify")) {
+            verify(mapping, classBytes);
+        }
+        if (metrics != null) {
+            metrics.add("classes.verified", 1);
+        }
+    }
+
+    private static void verify(ClassMapping mapping, byte[] classBytes) {
+        val digest = Hashing.classDigest(classBytes);
+        if (!digest.equals(mapping.getDigest())) {
+            throw new IllegalArgumentException("Class " + mapping.originalName + " changed since the mapfile was dumped! Cannot remap it with this mapfile due to fear of corruption!\n" +
+                                               "   File " + digest + "\n" +
+                                               "Mapping " + mapping.getDigest() + "\n");
+        }
+    }
+
+    public void remapJar(Path input, Path output) throws IOException {
+        remapJar(input, output, null);
+    }
+
+    public void remapJar(Path input, Path output, ExecutorService executor) throws IOException {
+        remapJar(input, output, executor, null, new Metrics("convert"));
+    }
+
+    public void remapJar(Path input, Path output, ExecutorService executor, ConvertCache cache, Metrics metrics) throws IOException {
+        remapJar(input, output, executor, cache, null, metrics);
+    }
+
+    public void remapJar(Path input, Path output, ExecutorService executor, ConvertCache cache, EntryMemo memo, Metrics metrics) throws IOException {
+        @Cleanup val inputJar = new ZipFile(input.toFile());
+        @Cleanup val outputJar = new ZipArchiveOutputStream(output.toFile());
+        @Cleanup val jarClasses = new LibraryClassPath(Collections.singletonList(input), false, 4096);
+        val members = remapper.getMembers().withClasses(jarClasses.orElse(libraries));
+        @Cleanup val ordered = new OrderedExecutor<EntryData>(executor, (result) -> {
+            try (val phase = metrics.phase("output")) {
+                result.write(inputJar, outputJar);
+            }
+        });
+        val names = new HashSet<String>();
+        if (memo != null) {
+            memo.checkSupertypes(inputJar);
+        }
+        try {
+            for (val entry: Collections.list(inputJar.getEntries())) {
+                metrics.add("entries", 1);
+                names.add(entry.getName());
+                if (!entry.getName().endsWith(".class") || entry.isDirectory()) {
+                    metrics.add("resources", 1);
+                    if (!entry.isDirectory() && resources.isRemapped(entry.getName())) {
+                        ordered.submit(() -> remapResourceEntry(inputJar, entry, metrics));
+                    } else {
+                        ordered.submit(() -> EntryData.raw(entry));
+                    }
+                    continue;
+                }
+                ordered.submit(() -> remapEntry(inputJar, entry, cache, memo, members, metrics));
+            }
+            ordered.finish();
+            if (memo != null) {
+                memo.retainAll(names);
+            }
+        } catch (IOException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException(e);
+        }
+    }
+
+    public void remapStream(InputStream input, OutputStream output, ExecutorService executor, ConvertCache cache, Metrics metrics) throws IOException {
+        remapStream(input, output, executor, cache, DEFAULT_STREAM_BUFFER, metrics);
+    }
+
+    public void remapStream(InputStream input, OutputStream output, ExecutorService executor, ConvertCache cache, long bufferBytes, Metrics metrics) throws IOException {
+        val inputJar = new ZipArchiveInputStream(input, "UTF-8", true, true);
+        val outputJar = new ZipArchiveOutputStream(output);
+        @Cleanup val ordered = new OrderedExecutor<EntryData>(executor, bufferBytes, (result) -> {
+            try (val phase = metrics.phase("output")) {
+                result.write(null, outputJar);
+            }
+        });
+        try {
+            ZipArchiveEntry entry;
+            while ((entry = inputJar.getNextZipEntry()) != null) {
+                metrics.add("entries", 1);
+                val source = entry;
+                if (entry.isDirectory()) {
+                    ordered.submit(() -> EntryData.directory(source));
+                    continue;
+                }
+                val isClass = entry.getName().endsWith(".class");
+                if (!isClass) {
+                    metrics.add("resources", 1);
+                }
+                if (!isClass && !resources.isRemapped(entry.getName()) && (entry.getSize() < 0 || entry.getSize() > STREAM_THRESHOLD)) {
+                    ordered.finish();
+                    try (val phase = metrics.phase("output")) {
+                        copyEntry(inputJar, source, outputJar);
+                    }
+                    continue;
+                }
+                byte[] bytes;
+                try (val phase = metrics.phase("read")) {
+                    bytes = IOUtils.toByteArray(inputJar);
+                }
+                ordered.submit(() -> {
+                    val result = isClass ? remapClassEntry(source, bytes, cache, members, metrics)
+                                         : resources.isRemapped(source.getName()) ? remapResourceEntry(source, bytes, metrics) : null;
+                    return result == null ? EntryData.deflate(source, source.getName(), bytes) : result;
+                }, bytes.length);
+            }
+            ordered.finish();
+            outputJar.finish();
+            drain(input);
+        } catch (IOException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException(e);
+        }
+    }
+
+    private static void drain(InputStream input) throws IOException {
+        val buffer = new byte[8192];
+        int read;
+        do {
+            read = input.read(buffer);
+        } while (read >= 0);
+    }
+
+    private static void copyEntry(ZipArchiveInputStream input, ZipArchiveEntry source, ZipArchiveOutputStream output) throws IOException {
+        val entry = new ZipArchiveEntry(source.getName());
+        entry.setTime(source.getTime());
+        entry.setMethod(ZipEntry.DEFLATED);
+        output.putArchiveEntry(entry);
+        IOUtils.copy(input, output);
+        output.closeArchiveEntry();
+    }
+
+    private EntryData remapResourceEntry(ZipFile inputJar, ZipArchiveEntry entry, Metrics metrics) throws IOException {
+        byte[] bytes;
+        try (val phase = metrics.phase("read")) {
+            @Cleanup val input = inputJar.getInputStream(entry);
+            bytes = IOUtils.toByteArray(input);
+        }
+        val result = remapResourceEntry(entry, bytes, metrics);
+        return result == null ? EntryData.raw(entry) : result;
+    }
+
+    private EntryData remapResourceEntry(ZipArchiveEntry entry, byte[] bytes, Metrics metrics) {
+        val name = resources.remapName(entry.getName());
+        val remapped = resources.remap(bytes);
+        if (remapped == bytes && name.equals(entry.getName())) {
+            return null;
+        }
+        metrics.add("resources.remapped", 1);
+        return EntryData.deflate(entry, name, remapped);
+    }
+
+    private EntryData remapEntry(ZipFile inputJar, ZipArchiveEntry entry, ConvertCache cache, EntryMemo memo, MemberResolver members, Metrics metrics) throws IOException {
+        if (memo != null) {
+            val memoized = memo.get(entry);
+            if (memoized != null) {
+                metrics.add("classes.unchanged", 1);
+                return memoized;
+            }
+        }
+        val result = remapEntry(inputJar, entry, cache, members, metrics);
+        if (memo != null) {
+            memo.put(entry, result);
+        }
+        return result;
+    }
+
+    private EntryData remapEntry(ZipFile inputJar, ZipArchiveEntry entry, ConvertCache cache, MemberResolver members, Metrics metrics) throws IOException {
+        byte[] bytes;
+        try (val phase = metrics.phase("read")) {
+            @Cleanup val input = inputJar.getInputStream(entry);
+            bytes = IOUtils.toByteArray(input);
+        }
+        val result = remapClassEntry(entry, bytes, cache, members, metrics);
+        return result == null ? EntryData.raw(entry) : result;
+    }
+
+    private EntryData remapClassEntry(ZipArchiveEntry entry, byte[] bytes, ConvertCache cache, MemberResolver members, Metrics metrics) throws IOException {
+        metrics.add("classBytes.in", bytes.length);
+        if (!needsRemap(bytes, members)) {
+            metrics.add("classes.unmapped", 1);
+            return null;
+        }
+        val key = cache == null ? null : cache.key(bytes, remapper.inheritance(new ClassScanner(bytes), members));
+        if (cache != null) {
+            try (val phase = metrics.phase("cache")) {
+                val cached = cache.get(key, entry);
+                if (cached != null) {
+                    metrics.add("classes.cached", 1);
+                    return cached;
+                }
+            }
+        }
+        var remapped = remap(bytes, entry.getName(), members, metrics);
+        metrics.add("classes.remapped", 1);
+        EntryData result;
+        try (val phase = metrics.phase("write")) {
+            if (compact) {
+                val compacted = ClassCompactor.compact(remapped);
+                metrics.add("classBytes.compacted", remapped.length - compacted.length);
+                remapped = compacted;
+            }
+            metrics.add("classBytes.out", remapped.length);
+            result = EntryData.deflate(entry, fileName(entry.getName(), new ClassScanner(bytes)), remapped);
+        }
+        if (cache != null) {
+            try (val phase = metrics.phase("cache")) {
+                cache.put(key, result);
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,139 @@
+package com.falsepattern.mappify;
+
+import com.falsepattern.mappify.mapping.MappingSet;
+import lombok.val;
+import lombok.var;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+
+public class ResourceRemapper {
+    private static final String SERVICES = "META-INF/services/";
+
+    private final MappingSet mappings;
+    private final List<Pattern> globs = new ArrayList<>();
+
+    public ResourceRemapper(MappingSet mappings) {
+        this(mappings, Collections.emptyList());
+    }
+
+    public ResourceRemapper(MappingSet mappings, List<String> globs) {
+        this.mappings = mappings;
+        for (val glob: globs) {
+            this.globs.add(compileGlob(glob));
+        }
+    }
+
+    public boolean isRemapped(String entryName) {
+        if (entryName.endsWith("/")) {
+            return false;
+        }
+        if (isService(entryName)) {
+            return true;
+        }
+        for (val glob: globs) {
+            if (glob.matcher(entryName).matches()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public String remapName(String entryName) {
+        if (!isService(entryName)) {
+            return entryName;
+        }
+        val service = mappings.getByOriginalName(entryName.substring(SERVICES.length()));
+        return service == null ? entryName : SERVICES + service.targetName;
+    }
+
+    public byte[] remap(byte[] data) {
+        val text = new String(data, StandardCharsets.UTF_8);
+        val remapped = remap(text);
+        return remapped == text ? data : remapped.getBytes(StandardCharsets.UTF_8);
+    }
+
+    public String remap(String text) {
+        StringBuilder out = null;
+        int copied = 0;
+        val n = text.length();
+        int i = 0;
+        while (i < n) {
+            if (!Character.isJavaIdentifierStart(text.charAt(i))) {
+                i++;
+                continue;
+            }
+            val start = i;
+            while (i < n && isNamePart(text.charAt(i))) {
+                i++;
+            }
+            var end = i;
+            while (end > start && !Character.isJavaIdentifierPart(text.charAt(end - 1))) {
+                end--;
+            }
+            val replacement = lookup(text.substring(start, end));
+            if (replacement != null) {
+                if (out == null) {
+                    out = new StringBuilder(n + 64);
+                }
+                out.append(text, copied, start).append(replacement);
+                copied = end;
+            }
+        }
+        if (out == null) {
+            return text;
+        }
+        return out.append(text, copied, n).toString();
+    }
+
+    private String lookup(String token) {
+        val dotted = mappings.getByOriginalName(token);
+        if (dotted != null) {
+            return dotted.targetName;
+        }
+        val internal = mappings.getByInternalName(token);
+        if (internal != null) {
+            return internal.getInternalTargetName();
+        }
+        if (token.endsWith(".class")) {
+            val file = mappings.getByInternalName(token.substring(0, token.length() - 6));
+            if (file != null) {
+                return file.getInternalTargetName() + ".class";
+            }
+        }
+        return null;
+    }
+
+    private static boolean isNamePart(char c) {
+        return c == '.' || c == '/' || Character.isJavaIdentifierPart(c);
+    }
+
+    private static boolean isService(String entryName) {
+        return entryName.startsWith(SERVICES) && entryName.indexOf('/', SERVICES.length()) < 0;
+    }
+
+    private static Pattern compileGlob(String glob) {
+        val regex = new StringBuilder();
+        int i = 0;
+        while (i < glob.length()) {
+            val c = glob.charAt(i);
+            if (c == '*') {
+                if (i + 1 < glob.length() && glob.charAt(i + 1) == '*') {
+                    regex.append(".*");
+                    i += 2;
+                    continue;
+                }
+                regex.append("[^/]*");
+            } else if (c == '?') {
+                regex.append("[^/]");
+            } else {
+                regex.append(Pattern.quote(String.valueOf(c)));
+            }
+            i++;
+        }
+        return Pattern.compile(regex.toString());
+    }
+}
@@ -0,0 +1,225 @@
+package com.falsepattern.mappify;
+
+import com.falsepattern.mappify.mapping.MappingSet;
+import com.falsepattern.mappify.mapping.MemberMapping;
+import lombok.RequiredArgsConstructor;
+import lombok.val;
+import lombok.var;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+public class Retracer {
+    private static final String AMBIGUOUS = new String("");
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final Node<Target> classes = new Node<>();
+    private final Node<String> names = new Node<>();
+
+    public Retracer(MappingSet mappings) {
+        for (val clazz: mappings.getClasses()) {
+            val members = new Node<String>();
+            for (val field: clazz.fields) {
+                addMember(members, field);
+            }
+            for (val method: clazz.methods) {
+                addMember(members, method);
+            }
+            classes.put(clazz.targetName, new Target(clazz.originalName, members));
+            classes.put(clazz.getInternalTargetName(), new Target(clazz.originalName.replace('.', '/'), members));
+            addName(simpleName(clazz.targetName), simpleName(clazz.originalName));
+        }
+    }
+
+    private void addMember(Node<String> members, MemberMapping member) {
+        if (member.originalName.startsWith("<")) {
+            return;
+        }
+        addName(members, member.getTargetName(), member.originalName);
+        addName(member.getTargetName(), member.originalName);
+    }
+
+    private void addName(String target, String original) {
+        addName(names, target, original);
+    }
+
+    private static void addName(Node<String> names, String target, String original) {
+        val node = names.add(target);
+        node.value = node.value == null || node.value.equals(original) ? original : AMBIGUOUS;
+    }
+
+    private static String simpleName(String name) {
+        return name.substring(name.lastIndexOf('.') + 1);
+    }
+
+    public void retrace(InputStream input, OutputStream output) throws IOException {
+        val writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8), BUFFER_SIZE);
+        retrace(new InputStreamReader(input, StandardCharsets.UTF_8), writer);
+        writer.flush();
+    }
+
+    public void retrace(Reader input, Writer output) throws IOException {
+        val reader = new BufferedReader(input, BUFFER_SIZE);
+        val out = new StringBuilder(256);
+        String line;
+        while ((line = reader.readLine()) != null) {
+            out.setLength(0);
+            retrace(line, out);
+            out.append('\n');
+            output.append(out);
+        }
+    }
+
+    public String retrace(String line) {
+        val out = new StringBuilder(line.length() + 16);
+        retrace(line, out);
+        return out.toString();
+    }
+
+    private void retrace(String line, StringBuilder out) {
+        val length = line.length();
+        int i = 0;
+        while (i < length) {
+            val c = line.charAt(i);
+            if (!Character.isJavaIdentifierPart(c)) {
+                out.append(c);
+                i++;
+                continue;
+            }
+            int end = i + 1;
+            while (end < length && (Character.isJavaIdentifierPart(line.charAt(end)) || isSeparator(line.charAt(end)))) {
+                end++;
+            }
+            while (end > i + 1 && isSeparator(line.charAt(end - 1))) {
+                end--;
+            }
+            retraceRun(line, i, end, out);
+            i = end;
+        }
+    }
+
+    private void retraceRun(String line, int start, int end, StringBuilder out) {
+        Target clazz = null;
+        int classEnd = start;
+        var node = classes;
+        for (int i = start; node != null; i++) {
+            if (node.value != null && (i == end || isSeparator(line.charAt(i)))) {
+                clazz = node.value;
+                classEnd = i;
+            }
+            node = i == end ? null : node.get(line.charAt(i));
+        }
+        int position = start;
+        if (clazz != null) {
+            out.append(clazz.original);
+            position = classEnd;
+            if (position < end && line.charAt(position) == '.') {
+                val memberEnd = segmentEnd(line, position + 1, end);
+                val member = clazz.members.find(line, position + 1, memberEnd);
+                if (member != null && member != AMBIGUOUS) {
+                    out.append('.').append(member);
+                    position = memberEnd;
+                }
+            }
+        }
+        while (position < end) {
+            val c = line.charAt(position);
+            if (isSeparator(c)) {
+                out.append(c);
+                position++;
+                continue;
+            }
+            val segmentEnd = segmentEnd(line, position, end);
+            val original = names.find(line, position, segmentEnd);
+            if (original != null && original != AMBIGUOUS) {
+                out.append(original);
+            } else {
+                out.append(line, position, segmentEnd);
+            }
+            position = segmentEnd;
+        }
+    }
+
+    private static int segmentEnd(String line, int start, int end) {
+        int i = start;
+        while (i < end && !isSeparator(line.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    private static boolean isSeparator(char c) {
+        return c == '.' || c == '/';
+    }
+
+    @RequiredArgsConstructor
+    private static class Target {
+        final String original;
+        final Node<String> members;
+    }
+
+    private static class Node<T> {
+        private char[] keys = new char[0];
+        private Node<T>[] children = newArray(0);
+        T value;
+
+        Node<T> get(char c) {
+            val i = Arrays.binarySearch(keys, c);
+            return i < 0 ? null : children[i];
+        }
+
+        Node<T> add(String key) {
+            var node = this;
+            for (int i = 0; i < key.length(); i++) {
+                node = node.child(key.charAt(i));
+            }
+            return node;
+        }
+
+        void put(String key, T value) {
+            add(key).value = value;
+        }
+
+        T find(String line, int start, int end) {
+            var node = this;
+            for (int i = start; i < end && node != null; i++) {
+                node = node.get(line.charAt(i));
+            }
+            return node == null ? null : node.value;
+        }
+
+        private Node<T> child(char c) {
+            var i = Arrays.binarySearch(keys, c);
+            if (i >= 0) {
+                return children[i];
+            }
+            i = -i - 1;
+            val length = keys.length;
+            val newKeys = new char[length + 1];
+            val newChildren = Node.<T>newArray(length + 1);
+            System.arraycopy(keys, 0, newKeys, 0, i);
+            System.arraycopy(children, 0, newChildren, 0, i);
+            System.arraycopy(keys, i, newKeys, i + 1, length - i);
+            System.arraycopy(children, i, newChildren, i + 1, length - i);
+            newKeys[i] = c;
+            newChildren[i] = new Node<>();
+            keys = newKeys;
+            children = newChildren;
+            return newChildren[i];
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <T> Node<T>[] newArray(int length) {
+            return (Node<T>[]) new Node[length];
+        }
+    }
+}
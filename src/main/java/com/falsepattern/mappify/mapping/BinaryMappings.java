@@ -0,0 +1,215 @@
+package com.falsepattern.mappify.mapping;
+
+import lombok.Cleanup;
+import lombok.val;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class BinaryMappings {
+    public static final int MAGIC = 0x4D504642;
+    public static final int VERSION = 4;
+    private static final int HEADER_SIZE = 7 * 4;
+    private static final int CLASS_RECORD_SIZE = 5 * 4;
+    private static final int MEMBER_RECORD_SIZE = 7 * 4;
+    private static final int FLAG_METHOD = 1;
+    private static final int FLAG_CRC = 1;
+
+    public static boolean isBinary(InputStream input) throws IOException {
+        input.mark(4);
+        try {
+            val magic = new byte[4];
+            int read = 0;
+            while (read < 4) {
+                val n = input.read(magic, read, 4 - read);
+                if (n < 0) {
+                    return false;
+                }
+                read += n;
+            }
+            return ByteBuffer.wrap(magic).getInt() == MAGIC;
+        } finally {
+            input.reset();
+        }
+    }
+
+    public static boolean isBinary(Path file) throws IOException {
+        @Cleanup val channel = FileChannel.open(file, StandardOpenOption.READ);
+        val magic = ByteBuffer.allocate(4);
+        while (magic.hasRemaining()) {
+            if (channel.read(magic) < 0) {
+                return false;
+            }
+        }
+        magic.flip();
+        return magic.getInt() == MAGIC;
+    }
+
+    public static void write(MappingSet mappings, String hash, OutputStream output) throws IOException {
+        Util.mapSignatures(mappings);
+        val strings = new StringTable();
+        val hashIndex = hash == null ? -1 : strings.add(hash);
+        val classes = mappings.getClasses();
+        val classIndices = new HashMap<ClassMapping, Integer>();
+        val classRecords = new int[classes.size() * 5];
+        val memberRecords = new ArrayList<int[]>();
+        for (int i = 0; i < classes.size(); i++) {
+            val clazz = classes.get(i);
+            classIndices.put(clazz, i);
+            classRecords[i * 5] = strings.add(clazz.originalName);
+            classRecords[i * 5 + 1] = strings.add(clazz.targetName);
+            classRecords[i * 5 + 2] = clazz.getCrc() < 0 ? 0 : FLAG_CRC;
+            classRecords[i * 5 + 3] = (int) clazz.getCrc();
+            classRecords[i * 5 + 4] = clazz.getDigest() == null ? -1 : strings.add(clazz.getDigest());
+        }
+        for (val clazz: classes) {
+            for (val member: clazz.fields) {
+                memberRecords.add(memberRecord(strings, classIndices.get(clazz), member));
+            }
+            for (val member: clazz.methods) {
+                memberRecords.add(memberRecord(strings, classIndices.get(clazz), member));
+            }
+        }
+        val out = new DataOutputStream(new BufferedOutputStream(output, 65536));
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(strings.size());
+        out.writeInt(classes.size());
+        out.writeInt(memberRecords.size());
+        out.writeInt(hashIndex);
+        out.writeInt(strings.dataLength);
+        int offset = 0;
+        for (val bytes: strings.encoded) {
+            out.writeInt(offset);
+            offset += bytes.length;
+        }
+        out.writeInt(offset);
+        for (val bytes: strings.encoded) {
+            out.write(bytes);
+        }
+        for (val value: classRecords) {
+            out.writeInt(value);
+        }
+        for (val record: memberRecords) {
+            for (val value: record) {
+                out.writeInt(value);
+            }
+        }
+        out.flush();
+    }
+
+    private static int[] memberRecord(StringTable strings, int classIndex, MemberMapping member) {
+        return new int[]{classIndex,
+                         member.method ? FLAG_METHOD : 0,
+                         strings.add(member.originalName),
+                         strings.add(member.signature),
+                         strings.add(member.getTargetName()),
+                         strings.add(member.getMappedSignature()),
+                         member.getAccess()};
+    }
+
+    public static MappingSet read(Path file, String hash) throws IOException {
+        return read(ByteBuffer.wrap(Files.readAllBytes(file)), hash);
+    }
+
+    public static MappingSet read(InputStream input, String hash) throws IOException {
+        val output = new ByteArrayOutputStream();
+        val buf = new byte[65536];
+        int n;
+        while ((n = input.read(buf)) > 0) {
+            output.write(buf, 0, n);
+        }
+        return read(ByteBuffer.wrap(output.toByteArray()), hash);
+    }
+
+    public static MappingSet read(ByteBuffer buffer, String hash) {
+        if (buffer.remaining() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IllegalArgumentException("Not a binary mapfile!");
+        }
+        val version = buffer.getInt(4);
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported binary mapfile version " + version + ", expected " + VERSION + "! Regenerate it with dump --format=binary.");
+        }
+        val stringCount = buffer.getInt(8);
+        val classCount = buffer.getInt(12);
+        val memberCount = buffer.getInt(16);
+        val hashIndex = buffer.getInt(20);
+        val dataLength = buffer.getInt(24);
+        val offsetsStart = HEADER_SIZE;
+        val dataStart = offsetsStart + (stringCount + 1) * 4;
+        val classesStart = dataStart + dataLength;
+        val membersStart = classesStart + classCount * CLASS_RECORD_SIZE;
+        if (membersStart + (long) memberCount * MEMBER_RECORD_SIZE > buffer.limit()) {
+            throw new IllegalArgumentException("Truncated binary mapfile!");
+        }
+        val data = new byte[dataLength];
+        val dataView = buffer.duplicate();
+        dataView.position(dataStart);
+        dataView.get(data);
+        val strings = new String[stringCount];
+        for (int i = 0; i < stringCount; i++) {
+            val start = buffer.getInt(offsetsStart + i * 4);
+            val end = buffer.getInt(offsetsStart + i * 4 + 4);
+            strings[i] = new String(data, start, end - start, StandardCharsets.UTF_8);
+        }
+        Util.verifyHash(hash, hashIndex < 0 ? null : strings[hashIndex]);
+        val mappings = new MappingSet();
+        mappings.setHash(hashIndex < 0 ? null : strings[hashIndex]);
+        val classes = new ClassMapping[classCount];
+        for (int i = 0; i < classCount; i++) {
+            val record = classesStart + i * CLASS_RECORD_SIZE;
+            classes[i] = ClassMapping.deserialize(strings[buffer.getInt(record)], strings[buffer.getInt(record + 4)]);
+            if ((buffer.getInt(record + 8) & FLAG_CRC) != 0) {
+                classes[i].setCrc(buffer.getInt(record + 12) & 0xFFFFFFFFL);
+            }
+            if (buffer.getInt(record + 16) >= 0) {
+                classes[i].setDigest(strings[buffer.getInt(record + 16)]);
+            }
+            mappings.add(classes[i]);
+        }
+        for (int i = 0; i < memberCount; i++) {
+            val record = membersStart + i * MEMBER_RECORD_SIZE;
+            val member = MemberMapping.deserialize(classes[buffer.getInt(record)],
+                                                   (buffer.getInt(record + 4) & FLAG_METHOD) != 0,
+                                                   strings[buffer.getInt(record + 8)],
+                                                   strings[buffer.getInt(record + 12)],
+                                                   strings[buffer.getInt(record + 16)],
+                                                   strings[buffer.getInt(record + 20)]);
+            member.setAccess(buffer.getInt(record + 24));
+        }
+        return mappings;
+    }
+
+    private static class StringTable {
+        private final Map<String, Integer> indices = new HashMap<>();
+        private final List<byte[]> encoded = new ArrayList<>();
+        private int dataLength;
+
+        int add(String value) {
+            return indices.computeIfAbsent(value, (key) -> {
+                val bytes = key.getBytes(StandardCharsets.UTF_8);
+                encoded.add(bytes);
+                dataLength += bytes.length;
+                return encoded.size() - 1;
+            });
+        }
+
+        int size() {
+            return encoded.size();
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package com.falsepattern.mappify.mapping;
+
+import com.falsepattern.mappify.report.Log;
+import lombok.val;
+import lombok.var;
+import org.apache.bcel.Const;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class ClassHierarchy {
+    private final MappingSet mappings;
+    private final ClassInfoProvider libraries;
+    private final Map<ClassMapping, List<String>> libraryParents = new IdentityHashMap<>();
+    private final Map<String, Set<String>> libraryMethods = new HashMap<>();
+    private final Map<ClassMapping, List<ClassMapping>> parents = new IdentityHashMap<>();
+    private final Map<ClassMapping, List<ClassMapping>> children = new IdentityHashMap<>();
+    private final Map<ClassMapping, Integer> order = new IdentityHashMap<>();
+    private final List<ClassMapping> topologicalOrder = new ArrayList<>();
+
+    public ClassHierarchy(MappingSet mappings) {
+        this(mappings, ClassInfoProvider.NONE);
+    }
+
+    public ClassHierarchy(MappingSet mappings, ClassInfoProvider libraries) {
+        this.mappings = mappings;
+        this.libraries = libraries;
+        for (val clazz: mappings.getClasses()) {
+            parents.put(clazz, new ArrayList<>());
+            children.put(clazz, new ArrayList<>());
+            libraryParents.put(clazz, new ArrayList<>());
+        }
+        for (val clazz: mappings.getClasses()) {
+            val supertypes = new LinkedHashSet<String>();
+            if (clazz.getSuperClass() != null) {
+                supertypes.add(clazz.getSuperClass());
+            }
+            Collections.addAll(supertypes, clazz.getInterfaces());
+            for (val name: supertypes) {
+                val parent = mappings.getByOriginalName(name);
+                if (parent == null) {
+                    libraryParents.get(clazz).add(name);
+                } else if (parent != clazz) {
+                    parents.get(clazz).add(parent);
+                    children.get(parent).add(clazz);
+                }
+            }
+            val superMapping = mappings.getByOriginalName(clazz.getSuperClass());
+            clazz.setMappedSuperClass(superMapping == null ? clazz.getSuperClass() : superMapping.targetName);
+        }
+        sort();
+    }
+
+    private void sort() {
+        val pending = new IdentityHashMap<ClassMapping, Integer>();
+        val queue = new ArrayDeque<ClassMapping>();
+        for (val clazz: mappings.getClasses()) {
+            pending.put(clazz, parents.get(clazz).size());
+            if (parents.get(clazz).isEmpty()) {
+                queue.add(clazz);
+            }
+        }
+        while (!queue.isEmpty()) {
+            val clazz = queue.poll();
+            order.put(clazz, topologicalOrder.size());
+            topologicalOrder.add(clazz);
+            for (val child: children.get(clazz)) {
+                if (pending.merge(child, -1, Integer::sum) == 0) {
+                    queue.add(child);
+                }
+            }
+        }
+        for (val clazz: mappings.getClasses()) {
+            if (!order.containsKey(clazz)) {
+                Log.warn("Cyclic inheritance involving " + clazz.originalName + ", ignoring its supertypes!");
+                parents.get(clazz).clear();
+                order.put(clazz, topologicalOrder.size());
+                topologicalOrder.add(clazz);
+            }
+        }
+    }
+
+    public void propagateMethodNames() {
+        val overrides = new IdentityHashMap<MemberMapping, MemberMapping>();
+        val visible = new IdentityHashMap<ClassMapping, Map<String, MemberMapping>>();
+        val visibleLibrary = new IdentityHashMap<ClassMapping, Set<String>>();
+        val remainingChildren = new IdentityHashMap<ClassMapping, Integer>();
+        val pinned = new ArrayList<MemberMapping>();
+        for (val clazz: topologicalOrder) {
+            Map<String, MemberMapping> table = null;
+            Set<String> libraryTable = null;
+            for (val parent: parents.get(clazz)) {
+                val parentTable = visible.get(parent);
+                val parentLibraryTable = visibleLibrary.get(parent);
+                val last = remainingChildren.merge(parent, -1, Integer::sum) == 0;
+                if (last) {
+                    visible.remove(parent);
+                    visibleLibrary.remove(parent);
+                }
+                if (table == null && last) {
+                    table = parentTable;
+                    libraryTable = parentLibraryTable;
+                    continue;
+                }
+                if (table == null) {
+                    table = new HashMap<>();
+                    libraryTable = new HashSet<>();
+                }
+                for (val entry: parentTable.entrySet()) {
+                    val existing = table.putIfAbsent(entry.getKey(), entry.getValue());
+                    if (existing != null) {
+                        union(overrides, existing, entry.getValue());
+                    }
+                }
+                libraryTable.addAll(parentLibraryTable);
+            }
+            if (table == null) {
+                table = new HashMap<>();
+                libraryTable = new HashSet<>();
+            }
+            for (val name: libraryParents.get(clazz)) {
+                libraryTable.addAll(libraryMethods(name));
+            }
+            for (val method: clazz.methods) {
+                if (!isOverridable(method)) {
+                    continue;
+                }
+                val key = ClassInfo.methodKey(method.originalName, method.signature);
+                val inherited = table.put(key, method);
+                if (inherited != null) {
+                    union(overrides, inherited, method);
+                }
+                if (libraryTable.contains(key)) {
+                    overrides.putIfAbsent(method, method);
+                    pinned.add(method);
+                }
+            }
+            val childCount = children.get(clazz).size();
+            if (childCount > 0) {
+                visible.put(clazz, table);
+                visibleLibrary.put(clazz, libraryTable);
+                remainingChildren.put(clazz, childCount);
+            }
+        }
+        val pinnedRoots = Collections.newSetFromMap(new IdentityHashMap<MemberMapping, Boolean>());
+        for (val method: pinned) {
+            pinnedRoots.add(find(overrides, method));
+        }
+        for (val clazz: topologicalOrder) {
+            for (val method: clazz.methods) {
+                if (!overrides.containsKey(method)) {
+                    continue;
+                }
+                val root = find(overrides, method);
+                if (pinnedRoots.contains(root)) {
+                    if (!method.targetName.equals(method.originalName)) {
+                        method.targetName = method.originalName;
+                        Log.debug(() -> ("Library method override:\n" + method).trim());
+                    }
+                } else if (root != method) {
+                    method.inherit(root);
+                    Log.debug(() -> ("Inherited method:\n" + method + root).trim());
+                }
+            }
+        }
+    }
+
+    private Set<String> libraryMethods(String className) {
+        val cached = libraryMethods.get(className);
+        if (cached != null) {
+            return cached;
+        }
+        libraryMethods.put(className, Collections.emptySet());
+        val info = libraries.getClassInfo(className);
+        if (info == null) {
+            return Collections.emptySet();
+        }
+        val methods = new HashSet<String>(info.overridableMethods);
+        if (info.superName != null) {
+            methods.addAll(libraryMethods(info.superName));
+        }
+        for (val name: info.interfaces) {
+            methods.addAll(libraryMethods(name));
+        }
+        libraryMethods.put(className, methods);
+        return methods;
+    }
+
+    private static boolean isOverridable(MemberMapping method) {
+        if (method.originalName.equals("<init>") || method.originalName.equals("<clinit>")) {
+            return false;
+        }
+        return (method.getAccess() & (Const.ACC_PRIVATE | Const.ACC_STATIC)) == 0;
+    }
+
+    private MemberMapping find(Map<MemberMapping, MemberMapping> overrides, MemberMapping member) {
+        var root = member;
+        var next = overrides.get(root);
+        while (next != null && next != root) {
+            root = next;
+            next = overrides.get(root);
+        }
+        var current = member;
+        while (current != root) {
+            next = overrides.get(current);
+            overrides.put(current, root);
+            current = next;
+        }
+        return root;
+    }
+
+    private void union(Map<MemberMapping, MemberMapping> overrides, MemberMapping a, MemberMapping b) {
+        overrides.putIfAbsent(a, a);
+        overrides.putIfAbsent(b, b);
+        val rootA = find(overrides, a);
+        val rootB = find(overrides, b);
+        if (rootA == rootB) {
+            return;
+        }
+        if (order.get(rootA.parent) <= order.get(rootB.parent)) {
+            overrides.put(rootB, rootA);
+        } else {
+            overrides.put(rootA, rootB);
+        }
+    }
+}
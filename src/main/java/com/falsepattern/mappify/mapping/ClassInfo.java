@@ -0,0 +1,17 @@
+package com.falsepattern.mappify.mapping;
+
+import lombok.RequiredArgsConstructor;
+
+import java.util.Set;
+
+@RequiredArgsConstructor
+public class ClassInfo {
+    public final String name;
+    public final String superName;
+    public final String[] interfaces;
+    public final Set<String> overridableMethods;
+
+    public static String methodKey(String name, String signature) {
+        return name + " " + signature;
+    }
+}
@@ -0,0 +1,19 @@
+package com.falsepattern.mappify.mapping;
+
+import lombok.val;
+
+public interface ClassInfoProvider {
+    ClassInfoProvider NONE = (className) -> null;
+
+    ClassInfo getClassInfo(String className);
+
+    default ClassInfoProvider orElse(ClassInfoProvider next) {
+        if (next == NONE) {
+            return this;
+        }
+        return (className) -> {
+            val info = getClassInfo(className);
+            return info != null ? info : next.getClassInfo(className);
+        };
+    }
+}
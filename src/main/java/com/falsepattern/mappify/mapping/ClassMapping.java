@@ -1,30 +1,50 @@
 package com.falsepattern.mappify.mapping;
 
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
+import lombok.Setter;
 import lombok.val;
 import org.apache.bcel.classfile.Field;
 import org.apache.bcel.classfile.JavaClass;
 import org.apache.bcel.classfile.Method;
 
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @RequiredArgsConstructor
 public class ClassMapping {
     public final String originalName;
     public final String targetName;
     @Getter
+    @Setter(AccessLevel.PACKAGE)
     private String mappedSuperClass;
+    @Getter
     private final String superClass;
     private final String[] interfaces;
-    private boolean inheritanceProcessed = false;
+    @Getter
+    @Setter
+    private long crc = -1;
+    @Getter
+    @Setter
+    private String digest;
     public final List<MemberMapping> fields = new ArrayList<>();
     public final List<MemberMapping> methods = new ArrayList<>();
+    private final Map<String, MemberMapping> fieldIndex = new HashMap<>();
+    private final Map<String, MemberMapping> methodIndex = new HashMap<>();
 
     public static ClassMapping autoMap(JavaClass clazz) {
+        return autoMap(clazz, null);
+    }
+
+    public static ClassMapping autoMap(JavaClass clazz, ClassMapping previous) {
+        return autoMap(clazz, previous, Util.DEFAULT_NAMES);
+    }
+
+    public static ClassMapping autoMap(JavaClass clazz, ClassMapping previous, NameGenerator names) {
         String name = clazz.getClassName();
         String pkg = "";
         int i = name.lastIndexOf('.');
@@ -33,29 +53,48 @@ public class ClassMapping {
             name = name.substring(i + 1);
         }
         String mappedName;
-        if (name.matches("Class_\\d+")) {
+        if (previous != null) {
+            mappedName = previous.targetName.substring(previous.targetName.lastIndexOf('.') + 1);
+        } else if (name.matches("Class_\\d+")) {
             mappedName = "Class_X" + name.substring(6);
         } else {
-            mappedName = "Class_" + Util.uniqueID();
+            mappedName = "Class_" + names.nextID(null, clazz.getClassName(), null);
         }
         val mapping = new ClassMapping(pkg + name, pkg + mappedName, clazz.getSuperclassName(), clazz.getInterfaceNames());
         for (Field field : clazz.getFields()) {
-            MemberMapping.autoMap(mapping, field);
+            MemberMapping.autoMap(mapping, field, previous, names);
         }
         for (Method method: clazz.getMethods()) {
             if (method.getName().equals("<clinit>")) {
                 continue;
             }
-            MemberMapping.autoMap(mapping, method);
+            MemberMapping.autoMap(mapping, method, previous, names);
         }
         mapping.fields.sort(Comparator.comparing((field) -> field.originalName));
         mapping.methods.sort(Comparator.comparing((method) -> method.originalName));
         return mapping;
     }
 
+    public static ClassMapping reuse(ClassMapping previous, String superClass, String[] interfaces) {
+        val mapping = new ClassMapping(previous.originalName, previous.targetName, superClass, interfaces);
+        for (val field: previous.fields) {
+            mapping.addMember(new MemberMapping(mapping, field.originalName, field.targetName, field.signature, false));
+        }
+        for (val method: previous.methods) {
+            mapping.addMember(new MemberMapping(mapping, method.originalName, method.targetName, method.signature, true));
+        }
+        mapping.crc = previous.crc;
+        mapping.digest = previous.digest;
+        return mapping;
+    }
+
     public static ClassMapping deserialize(String line) {
         val parts = line.split(" ");
-        return new ClassMapping(parts[1], parts[2], "", new String[0]);
+        return deserialize(parts[1], parts[2]);
+    }
+
+    public static ClassMapping deserialize(String originalName, String targetName) {
+        return new ClassMapping(originalName, targetName, "", new String[0]);
     }
 
     public void addMember(MemberMapping member) {
@@ -64,45 +103,42 @@ public class ClassMapping {
         } else {
             fields.add(member);
         }
+        indexMember(member);
     }
 
-    public void processInheritance(List<ClassMapping> mappings) {
-        if (inheritanceProcessed) return;
-        inheritanceProcessed = true;
-        val interfaces = new ArrayList<>(Arrays.asList(this.interfaces));
-        for (val otherClass: mappings) {
-            if (otherClass.originalName.equals(superClass)) {
-                otherClass.processInheritance(mappings);
-                mappedSuperClass = otherClass.targetName;
-                inheritMethods(otherClass);
-            }
-            if (interfaces.contains(otherClass.originalName)) {
-                otherClass.processInheritance(mappings);
-                inheritMethods(otherClass);
-                interfaces.remove(otherClass.originalName);
-            }
-        }
-        if (mappedSuperClass == null) {
-            mappedSuperClass = superClass;
-        }
+    private void indexMember(MemberMapping member) {
+        val index = member.method ? methodIndex : fieldIndex;
+        index.put(memberKey(member.originalName, member.signature), member);
     }
 
-    private void inheritMethods(ClassMapping clazz) {
-        for (val method: methods) {
-            if (method.originalName.equals("<clinit>") || method.originalName.equals("<init>"))
-                continue;
-            if (clazz.methods.contains(method)) {
-                val otherMethod = clazz.methods.get(clazz.methods.indexOf(method));
-                method.inherit(otherMethod);
-                System.out.print("Inherited method:\n" + method + otherMethod.toString());
-            }
-        }
+    private static String memberKey(String name, String signature) {
+        return name + " " + signature;
+    }
+
+    public MemberMapping getField(String name, String signature) {
+        return fieldIndex.get(memberKey(name, signature));
+    }
+
+    public MemberMapping getMethod(String name, String signature) {
+        return methodIndex.get(memberKey(name, signature));
+    }
+
+    public String[] getInterfaces() {
+        return interfaces.clone();
+    }
+
+    public String getInternalTargetName() {
+        return targetName.replace('.', '/');
     }
 
     public String classMap() {
         return "CL: " + originalName + " " + targetName + "\n";
     }
 
+    public String crcMap() {
+        return crc < 0 ? "" : "CRC: " + originalName + " " + Long.toHexString(crc) + "\n";
+    }
+
     public String fieldMap() {
         val result = new StringBuilder();
         fields.forEach((field) -> result.append(field.toString()));
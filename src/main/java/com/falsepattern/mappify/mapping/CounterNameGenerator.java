@@ -0,0 +1,17 @@
+package com.falsepattern.mappify.mapping;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+public class CounterNameGenerator implements NameGenerator {
+    private final AtomicLong next = new AtomicLong();
+
+    @Override
+    public String nextID(String owner, String name, String descriptor) {
+        return NameGenerator.format(next.getAndIncrement());
+    }
+
+    @Override
+    public void reserve(long id) {
+        next.accumulateAndGet(id + 1, Math::max);
+    }
+}
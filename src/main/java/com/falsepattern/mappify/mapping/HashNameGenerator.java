@@ -0,0 +1,87 @@
+package com.falsepattern.mappify.mapping;
+
+import lombok.val;
+import lombok.var;
+
+import java.nio.charset.StandardCharsets;
+
+public class HashNameGenerator implements NameGenerator {
+    private static final long SPACE = 1000000000000000000L;
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final IDSet used = new IDSet();
+
+    @Override
+    public String nextID(String owner, String name, String descriptor) {
+        var hash = FNV_OFFSET;
+        hash = update(hash, owner);
+        hash = update(hash, name);
+        hash = update(hash, descriptor);
+        while (true) {
+            val id = (mix(hash) & Long.MAX_VALUE) % SPACE;
+            if (used.add(id)) {
+                return NameGenerator.format(id);
+            }
+            hash = mix(hash + 1);
+        }
+    }
+
+    @Override
+    public void reserve(long id) {
+        used.add(id);
+    }
+
+    private static long update(long hash, String value) {
+        if (value == null) {
+            return hash * FNV_PRIME;
+        }
+        for (val b: value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xFF;
+            hash *= FNV_PRIME;
+        }
+        hash ^= 0xFF;
+        return hash * FNV_PRIME;
+    }
+
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb93fca5d1a53L;
+        return hash ^ hash >>> 33;
+    }
+
+    private static class IDSet {
+        private long[] table = new long[1024];
+        private int size;
+
+        synchronized boolean add(long id) {
+            val key = id + 1;
+            var i = slot(table, key);
+            if (table[i] == key) {
+                return false;
+            }
+            table[i] = key;
+            if (++size * 2 > table.length) {
+                val old = table;
+                table = new long[old.length * 2];
+                for (val existing: old) {
+                    if (existing != 0) {
+                        table[slot(table, existing)] = existing;
+                    }
+                }
+            }
+            return true;
+        }
+
+        private static int slot(long[] table, long key) {
+            val mask = table.length - 1;
+            var i = (int) mix(key) & mask;
+            while (table[i] != 0 && table[i] != key) {
+                i = (i + 1) & mask;
+            }
+            return i;
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.falsepattern.mappify.mapping;
+
+import lombok.val;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+public class MappingReader {
+    private static final byte[] CLASS_PREFIX = "CL: ".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] HASH_PREFIX = "HASH: ".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] METHOD_PREFIX = "MD: ".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] FIELD_PREFIX = "FD: ".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] CRC_PREFIX = "CRC: ".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] DIGEST_PREFIX = "DIGEST: ".getBytes(StandardCharsets.US_ASCII);
+    private static final int MAX_TOKENS = 6;
+
+    private final InputStream input;
+    private final byte[] buffer = new byte[65536];
+    private int position;
+    private int limit;
+    private byte[] line = new byte[256];
+    private int lineLength;
+    private final int[] tokenStarts = new int[MAX_TOKENS];
+    private final int[] tokenEnds = new int[MAX_TOKENS];
+    private int tokenCount;
+    private final Map<String, String> signatures = new HashMap<>();
+
+    public MappingReader(InputStream input) {
+        this.input = input;
+    }
+
+    public MappingSet read(String hash) throws IOException {
+        val classes = new MappingSet();
+        String foundHash = null;
+        while (nextLine()) {
+            if (startsWith(CLASS_PREFIX)) {
+                tokenize(3);
+                classes.add(ClassMapping.deserialize(token(1), token(2)));
+            } else if (startsWith(CRC_PREFIX)) {
+                tokenize(3);
+                classFor(classes, token(1)).setCrc(Long.parseLong(token(2), 16));
+            } else if (startsWith(DIGEST_PREFIX)) {
+                tokenize(3);
+                classFor(classes, token(1)).setDigest(token(2));
+            } else if (startsWith(HASH_PREFIX)) {
+                foundHash = lineString();
+                classes.setHash(foundHash);
+                Util.verifyHash(hash, foundHash);
+            } else if (startsWith(METHOD_PREFIX) || startsWith(FIELD_PREFIX)) {
+                tokenize(5);
+                val member = MemberMapping.deserialize(classes,
+                                                       line[0] == 'M',
+                                                       token(1),
+                                                       signature(token(2)),
+                                                       token(3),
+                                                       signature(token(4)));
+                if (tokenCount > 5) {
+                    member.setAccess(Integer.parseInt(token(5), 16));
+                }
+            } else if (lineLength == 0 || line[0] != ';') {
+                throw new IllegalArgumentException("Invalid line in mapfile: " + lineString());
+            }
+        }
+        if (foundHash == null) {
+            Util.verifyHash(hash, null);
+        }
+        return classes;
+    }
+
+    private boolean nextLine() throws IOException {
+        lineLength = 0;
+        boolean readAny = false;
+        while (true) {
+            if (position == limit) {
+                limit = input.read(buffer, 0, buffer.length);
+                position = 0;
+                if (limit <= 0) {
+                    limit = 0;
+                    return readAny;
+                }
+            }
+            readAny = true;
+            int end = position;
+            while (end < limit && buffer[end] != '\n') {
+                end++;
+            }
+            append(position, end);
+            if (end < limit) {
+                position = end + 1;
+                if (lineLength > 0 && line[lineLength - 1] == '\r') {
+                    lineLength--;
+                }
+                return true;
+            }
+            position = limit;
+        }
+    }
+
+    private void append(int start, int end) {
+        val length = end - start;
+        if (lineLength + length > line.length) {
+            line = Arrays.copyOf(line, Math.max(line.length * 2, lineLength + length));
+        }
+        System.arraycopy(buffer, start, line, lineLength, length);
+        lineLength += length;
+    }
+
+    private boolean startsWith(byte[] prefix) {
+        if (lineLength < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (line[i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void tokenize(int required) {
+        int count = 0;
+        int start = 0;
+        for (int i = 0; i <= lineLength && count < MAX_TOKENS; i++) {
+            if (i == lineLength || line[i] == ' ') {
+                tokenStarts[count] = start;
+                tokenEnds[count] = i;
+                count++;
+                start = i + 1;
+            }
+        }
+        if (count < required) {
+            throw new IllegalArgumentException("Invalid line in mapfile: " + lineString());
+        }
+        tokenCount = count;
+    }
+
+    private static ClassMapping classFor(MappingSet classes, String name) {
+        val clazz = classes.getByOriginalName(name);
+        if (clazz == null) {
+            throw new IllegalArgumentException("The mapping file should have the class definitions BEFORE any checksums! Missing class: " + name);
+        }
+        return clazz;
+    }
+
+    private String token(int index) {
+        return new String(line, tokenStarts[index], tokenEnds[index] - tokenStarts[index], StandardCharsets.UTF_8);
+    }
+
+    private String signature(String signature) {
+        val existing = signatures.putIfAbsent(signature, signature);
+        return existing == null ? signature : existing;
+    }
+
+    private String lineString() {
+        return new String(line, 0, lineLength, StandardCharsets.UTF_8);
+    }
+}
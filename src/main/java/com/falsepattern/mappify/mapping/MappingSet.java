@@ -0,0 +1,183 @@
+package com.falsepattern.mappify.mapping;
+
+import com.falsepattern.mappify.report.Log;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.val;
+import lombok.var;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class MappingSet {
+    private final List<ClassMapping> classes = new ArrayList<>();
+    private final Map<String, ClassMapping> byOriginalName = new HashMap<>();
+    private final Map<String, ClassMapping> byInternalName = new HashMap<>();
+    private final Map<String, ClassMapping> byTargetName = new HashMap<>();
+    @Getter
+    @Setter
+    private String hash;
+
+    public void add(ClassMapping mapping) {
+        classes.add(mapping);
+        byOriginalName.put(mapping.originalName, mapping);
+        byInternalName.put(mapping.originalName.replace('.', '/'), mapping);
+        byTargetName.put(mapping.targetName, mapping);
+    }
+
+    public List<ClassMapping> getClasses() {
+        return Collections.unmodifiableList(classes);
+    }
+
+    public int size() {
+        return classes.size();
+    }
+
+    public void sort() {
+        classes.sort(Comparator.comparing((clazz) -> clazz.originalName));
+    }
+
+    public ClassMapping getByOriginalName(String name) {
+        return byOriginalName.get(name);
+    }
+
+    public ClassMapping getByInternalName(String internalName) {
+        return byInternalName.get(internalName);
+    }
+
+    public ClassMapping getByTargetName(String name) {
+        return byTargetName.get(name);
+    }
+
+    public boolean hasDigests() {
+        for (val clazz: classes) {
+            if (clazz.getDigest() != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public String translateClass(String internalName) {
+        val mapping = byInternalName.get(internalName);
+        return mapping == null ? internalName : mapping.getInternalTargetName();
+    }
+
+    public int merge(MappingSet other) {
+        int duplicates = 0;
+        for (val clazz: other.classes) {
+            val existing = byOriginalName.get(clazz.originalName);
+            if (existing == null) {
+                add(clazz);
+                continue;
+            }
+            duplicates++;
+            if (!existing.targetName.equals(clazz.targetName)) {
+                Log.warn("Conflicting mappings for " + clazz.originalName + ": " + existing.targetName + " and " + clazz.targetName + ", keeping the first one!");
+            }
+        }
+        return duplicates;
+    }
+
+    public MappingSet invert() {
+        val result = new MappingSet();
+        for (val clazz: classes) {
+            val inverse = ClassMapping.deserialize(clazz.targetName, clazz.originalName);
+            result.add(inverse);
+            for (val member: clazz.fields) {
+                invertMember(inverse, member);
+            }
+            for (val member: clazz.methods) {
+                invertMember(inverse, member);
+            }
+        }
+        return result;
+    }
+
+    private void invertMember(ClassMapping inverse, MemberMapping member) {
+        val mappedSignature = member.getMappedSignature() == null ? Util.mapSignature(this, member.signature) : member.getMappedSignature();
+        MemberMapping.deserialize(inverse, member.method, member.getTargetName(), mappedSignature, member.originalName, member.signature)
+                     .setAccess(member.getAccess());
+    }
+
+    public MappingSet compose(MappingSet next) {
+        val result = new MappingSet();
+        val consumed = Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+        for (val clazz: classes) {
+            val nextClass = next.getByOriginalName(clazz.targetName);
+            val composed = ClassMapping.deserialize(clazz.originalName, nextClass == null ? clazz.targetName : nextClass.targetName);
+            composed.setCrc(clazz.getCrc());
+            composed.setDigest(clazz.getDigest());
+            result.add(composed);
+            if (nextClass != null) {
+                consumed.add(nextClass);
+            }
+            for (val member: clazz.fields) {
+                composeMember(composed, member, nextClass, next, consumed);
+            }
+            for (val member: clazz.methods) {
+                composeMember(composed, member, nextClass, next, consumed);
+            }
+        }
+        MappingSet inverse = null;
+        for (val nextClass: next.classes) {
+            val clazz = consumed.contains(nextClass) ? byTargetName.get(nextClass.originalName) : null;
+            if (clazz == null && byOriginalName.containsKey(nextClass.originalName)) {
+                continue;
+            }
+            var composed = clazz == null ? null : result.getByOriginalName(clazz.originalName);
+            if (composed == null) {
+                composed = ClassMapping.deserialize(nextClass.originalName, nextClass.targetName);
+                result.add(composed);
+            }
+            for (val member: nextClass.fields) {
+                if (!consumed.contains(member)) {
+                    inverse = inverse == null ? invert() : inverse;
+                    addUnconsumed(composed, member, inverse, next);
+                }
+            }
+            for (val member: nextClass.methods) {
+                if (!consumed.contains(member)) {
+                    inverse = inverse == null ? invert() : inverse;
+                    addUnconsumed(composed, member, inverse, next);
+                }
+            }
+        }
+        return result;
+    }
+
+    private void composeMember(ClassMapping composed, MemberMapping member, ClassMapping nextClass, MappingSet next, Set<Object> consumed) {
+        val mappedSignature = member.getMappedSignature() == null ? Util.mapSignature(this, member.signature) : member.getMappedSignature();
+        MemberMapping nextMember = null;
+        if (nextClass != null) {
+            nextMember = member.method ? nextClass.getMethod(member.getTargetName(), mappedSignature) : nextClass.getField(member.getTargetName(), mappedSignature);
+        }
+        if (nextMember != null) {
+            consumed.add(nextMember);
+        }
+        MemberMapping.deserialize(composed,
+                                  member.method,
+                                  member.originalName,
+                                  member.signature,
+                                  nextMember == null ? member.getTargetName() : nextMember.getTargetName(),
+                                  Util.mapSignature(next, mappedSignature))
+                     .setAccess(member.getAccess());
+    }
+
+    private static void addUnconsumed(ClassMapping composed, MemberMapping member, MappingSet inverse, MappingSet next) {
+        val mappedSignature = member.getMappedSignature() == null ? Util.mapSignature(next, member.signature) : member.getMappedSignature();
+        MemberMapping.deserialize(composed,
+                                  member.method,
+                                  member.originalName,
+                                  Util.mapSignature(inverse, member.signature),
+                                  member.getTargetName(),
+                                  mappedSignature)
+                     .setAccess(member.getAccess());
+    }
+}
@@ -0,0 +1,175 @@
+package com.falsepattern.mappify.mapping;
+
+import lombok.val;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+public class MappingWriter implements Closeable {
+    private static final byte[] CLASS_PREFIX = "CL: ".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] METHOD_PREFIX = "MD: ".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] FIELD_PREFIX = "FD: ".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] CRC_PREFIX = "CRC: ".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] DIGEST_PREFIX = "DIGEST: ".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+    private final OutputStream output;
+    private final byte[] buffer = new byte[65536];
+    private int position;
+
+    public MappingWriter(OutputStream output) {
+        this.output = output;
+    }
+
+    public void writeHash(String hash) throws IOException {
+        put(hash);
+        put('\n');
+    }
+
+    public void write(MappingSet mappings) throws IOException {
+        Util.mapSignatures(mappings);
+        val classes = mappings.getClasses();
+        for (val clazz: classes) {
+            put(CLASS_PREFIX);
+            put(clazz.originalName);
+            put(' ');
+            put(clazz.targetName);
+            put('\n');
+        }
+        for (val clazz: classes) {
+            if (clazz.getCrc() < 0) {
+                continue;
+            }
+            put(CRC_PREFIX);
+            put(clazz.originalName);
+            put(' ');
+            putHex(clazz.getCrc());
+            put('\n');
+        }
+        for (val clazz: classes) {
+            if (clazz.getDigest() == null) {
+                continue;
+            }
+            put(DIGEST_PREFIX);
+            put(clazz.originalName);
+            put(' ');
+            put(clazz.getDigest());
+            put('\n');
+        }
+        for (val clazz: classes) {
+            for (val field: clazz.fields) {
+                putMember(field);
+            }
+        }
+        for (val clazz: classes) {
+            for (val method: clazz.methods) {
+                putMember(method);
+            }
+        }
+    }
+
+    private void putMember(MemberMapping member) throws IOException {
+        put(member.method ? METHOD_PREFIX : FIELD_PREFIX);
+        put(member.parent.originalName);
+        put('.');
+        put(member.originalName);
+        put(' ');
+        put(member.signature);
+        put(' ');
+        put(member.parent.targetName);
+        put('.');
+        put(member.targetName);
+        put(' ');
+        put(member.mappedSignature);
+        put(' ');
+        putHex(member.getAccess());
+        put('\n');
+    }
+
+    private void put(char c) throws IOException {
+        if (position == buffer.length) {
+            flushBuffer();
+        }
+        buffer[position++] = (byte) c;
+    }
+
+    private void put(byte[] bytes) throws IOException {
+        if (buffer.length - position < bytes.length) {
+            flushBuffer();
+        }
+        if (bytes.length > buffer.length) {
+            output.write(bytes);
+            return;
+        }
+        System.arraycopy(bytes, 0, buffer, position, bytes.length);
+        position += bytes.length;
+    }
+
+    private void putHex(long value) throws IOException {
+        if (buffer.length - position < 16) {
+            flushBuffer();
+        }
+        int digits = 1;
+        while (digits < 16 && (value >>> (digits * 4)) != 0) {
+            digits++;
+        }
+        for (int i = digits - 1; i >= 0; i--) {
+            buffer[position++] = HEX[(int) (value >>> (i * 4)) & 0xF];
+        }
+    }
+
+    private void put(String value) throws IOException {
+        val length = value.length();
+        if (length * 3 > buffer.length) {
+            put(value.getBytes(StandardCharsets.UTF_8));
+            return;
+        }
+        if (buffer.length - position < length * 3) {
+            flushBuffer();
+        }
+        for (int i = 0; i < length; i++) {
+            val c = value.charAt(i);
+            if (c < 0x80) {
+                buffer[position++] = (byte) c;
+            } else if (c < 0x800) {
+                buffer[position++] = (byte) (0xC0 | (c >> 6));
+                buffer[position++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                val codePoint = Character.toCodePoint(c, value.charAt(++i));
+                buffer[position++] = (byte) (0xF0 | (codePoint >> 18));
+                buffer[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                buffer[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                buffer[position++] = (byte) (0x80 | (codePoint & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                buffer[position++] = '?';
+            } else {
+                buffer[position++] = (byte) (0xE0 | (c >> 12));
+                buffer[position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                buffer[position++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+    }
+
+    private void flushBuffer() throws IOException {
+        if (position > 0) {
+            output.write(buffer, 0, position);
+            position = 0;
+        }
+    }
+
+    public void flush() throws IOException {
+        flushBuffer();
+        output.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            output.close();
+        }
+    }
+}
@@ -3,12 +3,12 @@ package com.falsepattern.mappify.mapping;
 import lombok.Getter;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
+import lombok.Setter;
 import lombok.val;
 import lombok.var;
 import org.apache.bcel.classfile.Field;
 import org.apache.bcel.classfile.Method;
 
-import java.util.List;
 import java.util.Objects;
 
 @RequiredArgsConstructor
@@ -21,61 +21,100 @@ public class MemberMapping {
     String targetName;
     public final String signature;
     @Getter
-    private String mappedSignature;
+    String mappedSignature;
 
     public final boolean method;
+    @Getter
+    @Setter
+    private int access;
 
     public static void autoMap(ClassMapping parent, Field field) {
+        autoMap(parent, field, null);
+    }
+
+    public static void autoMap(ClassMapping parent, Field field, ClassMapping previous) {
+        autoMap(parent, field, previous, Util.DEFAULT_NAMES);
+    }
+
+    public static void autoMap(ClassMapping parent, Field field, ClassMapping previous, NameGenerator names) {
+        val previousMember = previous == null ? null : previous.getField(field.getName(), field.getSignature());
         var name = field.getName();
-        if (name.length() < 3) {
+        if (previousMember != null) {
+            name = previousMember.targetName;
+        } else if (name.length() < 3) {
             char suffix = field.getSignature().charAt(0);
             if (suffix == '[') {
                 suffix = 'a';
             }
-            name = "field_" + Util.uniqueID() + "_" + Character.toLowerCase(suffix);
+            name = "field_" + names.nextID(parent.originalName, field.getName(), field.getSignature()) + "_" + Character.toLowerCase(suffix);
         } else if (name.matches("field_\\d+_\\w")) {
             name = "field_X" + name.substring(6);
         }
         val member = new MemberMapping(parent, field.getName(), name, field.getSignature(), false);
+        member.access = field.getAccessFlags();
         parent.addMember(member);
     }
 
     public static void autoMap(ClassMapping parent, Method method) {
+        autoMap(parent, method, null);
+    }
+
+    public static void autoMap(ClassMapping parent, Method method, ClassMapping previous) {
+        autoMap(parent, method, previous, Util.DEFAULT_NAMES);
+    }
+
+    public static void autoMap(ClassMapping parent, Method method, ClassMapping previous, NameGenerator names) {
+        val previousMember = previous == null ? null : previous.getMethod(method.getName(), method.getSignature());
         var name = method.getName();
-        if (name.length() < 3) {
-            name = "method_" + Util.uniqueID();
+        if (previousMember != null) {
+            name = previousMember.targetName;
+        } else if (name.length() < 3) {
+            name = "method_" + names.nextID(parent.originalName, method.getName(), method.getSignature());
         } else if (name.matches("method_\\d+")) {
             name = "method_X" + name.substring(7);
         }
         val member = new MemberMapping(parent, method.getName(), name, method.getSignature(), true);
+        member.access = method.getAccessFlags();
         parent.addMember(member);
     }
 
-    public static void deserialize(String str, List<ClassMapping> classes) {
+    public static void deserialize(String str, MappingSet classes) {
         val parts = str.split(" ");
-        int i = parts[1].lastIndexOf('.');
-        val className = parts[1].substring(0, i);
-        val clazzOpt = classes.stream().filter((candidate) -> candidate.originalName.equals(className)).findFirst();
-        if (!clazzOpt.isPresent()) {
+        val member = deserialize(classes, parts[0].equals("MD:"), parts[1], parts[2], parts[3], parts[4]);
+        if (parts.length > 5) {
+            member.access = Integer.parseInt(parts[5], 16);
+        }
+    }
+
+    public static MemberMapping deserialize(MappingSet classes, boolean method, String qualifiedName, String signature, String qualifiedTarget, String mappedSignature) {
+        int i = qualifiedName.lastIndexOf('.');
+        val className = qualifiedName.substring(0, i);
+        val clazz = classes.getByOriginalName(className);
+        if (clazz == null) {
             throw new IllegalArgumentException("The mapping file should have the class definitions BEFORE any member definitions! Missing class: " + className);
         }
-        val clazz = clazzOpt.get();
-        val member = new MemberMapping(clazz,
-                                       parts[1].substring(i + 1),
-                                       parts[3].substring(parts[3].lastIndexOf('.') + 1),
-                                       parts[2],
-                                       parts[0].equals("MD:"));
-        member.mappedSignature = parts[4];
+        return deserialize(clazz,
+                           method,
+                           qualifiedName.substring(i + 1),
+                           signature,
+                           qualifiedTarget.substring(qualifiedTarget.lastIndexOf('.') + 1),
+                           mappedSignature);
+    }
+
+    public static MemberMapping deserialize(ClassMapping clazz, boolean method, String name, String signature, String targetName, String mappedSignature) {
+        val member = new MemberMapping(clazz, name, targetName, signature, method);
+        member.mappedSignature = mappedSignature;
         clazz.addMember(member);
+        return member;
     }
 
-    public void mapSignature(List<ClassMapping> mappings) {
+    public void mapSignature(MappingSet mappings) {
         mappedSignature = Util.mapSignature(mappings, signature);
     }
 
     @Override
     public String toString() {
-        return (method ? "MD: " : "FD: ") + parent.originalName + "." + originalName + " " + signature + " " + parent.targetName + "." + targetName + " " + mappedSignature + "\n";
+        return (method ? "MD: " : "FD: ") + parent.originalName + "." + originalName + " " + signature + " " + parent.targetName + "." + targetName + " " + mappedSignature + " " + Integer.toHexString(access) + "\n";
     }
 
     public void inherit(MemberMapping superMember) {
@@ -0,0 +1,34 @@
+package com.falsepattern.mappify.mapping;
+
+import lombok.val;
+
+public interface NameGenerator {
+    String nextID(String owner, String name, String descriptor);
+
+    void reserve(long id);
+
+    static NameGenerator forName(String name) {
+        switch (name) {
+            case "random":
+                return new RandomNameGenerator();
+            case "counter":
+                return new CounterNameGenerator();
+            case "hash":
+                return new HashNameGenerator();
+            default:
+                throw new IllegalArgumentException("Unknown name generator: " + name);
+        }
+    }
+
+    static String format(long id) {
+        val digits = Long.toString(id);
+        if (digits.length() >= 6) {
+            return digits;
+        }
+        val result = new StringBuilder(6);
+        for (int i = digits.length(); i < 6; i++) {
+            result.append('0');
+        }
+        return result.append(digits).toString();
+    }
+}
@@ -0,0 +1,29 @@
+package com.falsepattern.mappify.mapping;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+public class RandomNameGenerator implements NameGenerator {
+    private final Set<Long> used = new HashSet<>();
+    private final Random rng = new Random(1001);
+    private long bound = 1000000;
+
+    @Override
+    public synchronized String nextID(String owner, String name, String descriptor) {
+        while (true) {
+            if (used.size() * 2 >= bound) {
+                bound *= 10;
+            }
+            long n = bound <= Integer.MAX_VALUE ? rng.nextInt((int) bound) : (rng.nextLong() & Long.MAX_VALUE) % bound;
+            if (used.add(n)) {
+                return NameGenerator.format(n);
+            }
+        }
+    }
+
+    @Override
+    public synchronized void reserve(long id) {
+        used.add(id);
+    }
+}
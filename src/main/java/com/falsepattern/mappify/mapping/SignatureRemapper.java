@@ -0,0 +1,148 @@
+package com.falsepattern.mappify.mapping;
+
+import lombok.RequiredArgsConstructor;
+import lombok.val;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+@RequiredArgsConstructor
+public class SignatureRemapper {
+    private static final String NO_CLASS = "";
+    private final MappingSet mappings;
+
+    public String remap(String value) {
+        val exact = mappings.getByOriginalName(value);
+        if (exact != null) {
+            return exact.targetName;
+        }
+        val exactInternal = mappings.getByInternalName(value);
+        if (exactInternal != null) {
+            return exactInternal.getInternalTargetName();
+        }
+        return remapDescriptor(value);
+    }
+
+    public String remapDescriptor(String descriptor) {
+        if (descriptor.indexOf('L') < 0) {
+            return descriptor;
+        }
+        return new Rewriter(descriptor).run();
+    }
+
+    private static boolean isNameTerminator(char c) {
+        switch (c) {
+            case ';':
+            case '<':
+            case '>':
+            case '.':
+            case '[':
+            case '(':
+            case ')':
+            case ':':
+                return true;
+            default:
+                return Character.isWhitespace(c);
+        }
+    }
+
+    @RequiredArgsConstructor
+    private class Rewriter {
+        private final String value;
+        private final Deque<String> outerClasses = new ArrayDeque<>();
+        private StringBuilder out;
+        private int copied;
+
+        String run() {
+            val n = value.length();
+            int i = 0;
+            while (i < n) {
+                val c = value.charAt(i);
+                if (c == 'L') {
+                    i = classType(i + 1);
+                } else if (c == '<') {
+                    outerClasses.push(NO_CLASS);
+                    i++;
+                } else if (c == '>') {
+                    val outer = outerClasses.isEmpty() ? NO_CLASS : outerClasses.pop();
+                    i++;
+                    if (i < n && value.charAt(i) == '.' && !outer.isEmpty()) {
+                        i = innerClassType(outer, i + 1);
+                    }
+                } else {
+                    i++;
+                }
+            }
+            if (out == null) {
+                return value;
+            }
+            return out.append(value, copied, n).toString();
+        }
+
+        private int scanName(int start) {
+            val n = value.length();
+            int end = start;
+            while (end < n && !isNameTerminator(value.charAt(end))) {
+                end++;
+            }
+            return end;
+        }
+
+        private int classType(int start) {
+            val end = scanName(start);
+            if (end == start || end >= value.length()) {
+                return end;
+            }
+            val terminator = value.charAt(end);
+            if (terminator != ';' && terminator != '<') {
+                return end;
+            }
+            val name = value.substring(start, end);
+            val mapping = mappings.getByInternalName(name);
+            if (mapping != null) {
+                replace(start, end, mapping.getInternalTargetName());
+            }
+            if (terminator == '<') {
+                outerClasses.push(name);
+                return end + 1;
+            }
+            return end;
+        }
+
+        private int innerClassType(String outer, int start) {
+            val end = scanName(start);
+            if (end == start || end >= value.length()) {
+                return end;
+            }
+            val terminator = value.charAt(end);
+            if (terminator != ';' && terminator != '<' && terminator != '.') {
+                return end;
+            }
+            val name = outer + '$' + value.substring(start, end);
+            val mapping = mappings.getByInternalName(name);
+            if (mapping != null) {
+                val mappedOuter = mappings.translateClass(outer) + '$';
+                val mappedName = mapping.getInternalTargetName();
+                if (mappedName.startsWith(mappedOuter)) {
+                    replace(start, end, mappedName.substring(mappedOuter.length()));
+                }
+            }
+            if (terminator == '<') {
+                outerClasses.push(name);
+                return end + 1;
+            }
+            if (terminator == '.') {
+                return innerClassType(name, end + 1);
+            }
+            return end;
+        }
+
+        private void replace(int start, int end, String replacement) {
+            if (out == null) {
+                out = new StringBuilder(value.length() + 16);
+            }
+            out.append(value, copied, start).append(replacement);
+            copied = end;
+        }
+    }
+}
@@ -1,125 +1,132 @@
 package com.falsepattern.mappify.mapping;
 
+import com.falsepattern.mappify.report.Log;
 import lombok.val;
+import lombok.var;
 
+import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.nio.charset.StandardCharsets;
-import java.util.ArrayList;
-import java.util.Comparator;
-import java.util.HashSet;
-import java.util.List;
-import java.util.Random;
-import java.util.Scanner;
-import java.util.Set;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.zip.GZIPInputStream;
 
 public class Util {
-    private static final Set<Integer> usedNumbers = new HashSet<>();
-    private static final Random rng = new Random(1001);
+    static final NameGenerator DEFAULT_NAMES = new RandomNameGenerator();
+
     public static String uniqueID() {
-        val str = new StringBuilder();
-        String num;
-        synchronized (usedNumbers) {
-            while (true) {
-                int n = rng.nextInt(1000000);
-                if (usedNumbers.contains(n)) {
-                    continue;
-                }
-                usedNumbers.add(n);
-                num = Integer.toString(n);
-                break;
+        return DEFAULT_NAMES.nextID(null, null, null);
+    }
+
+    public static void reserveIDs(MappingSet mappings) {
+        reserveIDs(mappings, DEFAULT_NAMES);
+    }
+
+    public static void reserveIDs(MappingSet mappings, NameGenerator names) {
+        for (val clazz: mappings.getClasses()) {
+            reserveID(names, clazz.targetName.substring(clazz.targetName.lastIndexOf('.') + 1), "Class_");
+            for (val field: clazz.fields) {
+                reserveID(names, field.getTargetName(), "field_");
+            }
+            for (val method: clazz.methods) {
+                reserveID(names, method.getTargetName(), "method_");
             }
         }
-        int length = num.length();
-        for (; length < 6; length++) {
-            str.append('0');
+    }
+
+    private static void reserveID(NameGenerator names, String name, String prefix) {
+        if (!name.startsWith(prefix)) {
+            return;
+        }
+        int end = prefix.length();
+        while (end < name.length() && Character.isDigit(name.charAt(end))) {
+            end++;
         }
-        str.append(num);
-        return str.toString();
+        if (end == prefix.length() || end - prefix.length() > 18) {
+            return;
+        }
+        names.reserve(Long.parseLong(name.substring(prefix.length(), end)));
     }
 
-    public static String mapSignature(List<ClassMapping> mappings, String signature) {
-        val remapped = new StringBuilder();
-        val buf = new StringBuilder();
-        boolean reading = false;
-        val chars = signature.toCharArray();
-        for (char aChar : chars) {
-            if (reading) {
-                if (aChar == ';') {
-                    remapped.append(Util.translateClass(mappings, buf.toString()))
-                            .append(';');
-                    buf.setLength(0);
-                    reading = false;
-                } else {
-                    buf.append(aChar);
-                }
-            } else {
-                if (aChar == 'L') {
-                    reading = true;
-                }
-                remapped.append(aChar);
-            }
+    public static String mapSignature(MappingSet mappings, String signature) {
+        return new SignatureRemapper(mappings).remapDescriptor(signature);
+    }
+
+    public static MappingSet parseClasses(InputStream input, String hash) throws IOException {
+        var buffered = input instanceof BufferedInputStream ? input : new BufferedInputStream(input, 65536);
+        if (isGzip(buffered)) {
+            buffered = new BufferedInputStream(new GZIPInputStream(buffered, 65536), 65536);
+        }
+        if (BinaryMappings.isBinary(buffered)) {
+            return BinaryMappings.read(buffered, hash);
         }
-        return remapped.toString();
+        return new MappingReader(buffered).read(hash);
     }
 
-    public static List<ClassMapping> parseClasses(InputStream input, String hash) {
-        val scan = new Scanner(input);
-        val classes = new ArrayList<ClassMapping>();
-        boolean foundHash = false;
-        while (scan.hasNextLine()) {
-            val line = scan.nextLine();
-            if (line.startsWith("CL: ")) {
-                classes.add(ClassMapping.deserialize(line));
-            } else if (line.startsWith("HASH: ")) {
-                if (!hash.equals(line)) {
-                    throw new IllegalArgumentException("Invalid mapping hash! Cannot use this mapping file for this specific jar due to fear of corruption!\n" +
-                                                       "   File " + hash + "\n" +
-                                                       "Mapping " + line + "\n");
-                } else {
-                    foundHash = true;
-                }
-            } else if (line.startsWith("MD: ") || line.startsWith("FD: ")) {
-                MemberMapping.deserialize(line, classes);
-            } else if (!line.startsWith(";")) {
-                throw new IllegalArgumentException("Invalid line in mapfile: " + line);
+    public static MappingSet parseClasses(Path file, String hash) throws IOException {
+        if (isGzip(file)) {
+            try (val input = Files.newInputStream(file)) {
+                return parseClasses(input, hash);
             }
         }
-        if (!foundHash) {
-            System.err.println("Missing mapping hash! Things might not work as expected!");
+        if (BinaryMappings.isBinary(file)) {
+            return BinaryMappings.read(file, hash);
+        }
+        try (val input = Files.newInputStream(file)) {
+            return new MappingReader(input).read(hash);
         }
-        return classes;
     }
 
-    public static void serializeClasses(List<ClassMapping> classes, OutputStream out) throws IOException {
-        classes.sort(Comparator.comparing((clazz) -> clazz.originalName));
-        for (val clazz : classes) {
-            for (val method : clazz.methods) {
-                method.mapSignature(classes);
-            }
-            for (val field: clazz.fields) {
-                field.mapSignature(classes);
-            }
+    private static boolean isGzip(InputStream input) throws IOException {
+        input.mark(2);
+        try {
+            return input.read() == (GZIPInputStream.GZIP_MAGIC & 0xFF) && input.read() == (GZIPInputStream.GZIP_MAGIC >>> 8);
+        } finally {
+            input.reset();
         }
-        for (val clazz : classes) {
-            out.write(clazz.classMap().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static boolean isGzip(Path file) throws IOException {
+        try (val input = Files.newInputStream(file)) {
+            return input.read() == (GZIPInputStream.GZIP_MAGIC & 0xFF) && input.read() == (GZIPInputStream.GZIP_MAGIC >>> 8);
         }
-        for (val clazz : classes) {
-            out.write(clazz.fieldMap().getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static boolean verifyHash(String expected, String actual) {
+        if (expected == null) {
+            return actual != null;
+        }
+        if (actual == null) {
+            Log.warn("Missing mapping hash! Things might not work as expected!");
+            return false;
         }
-        for (val clazz : classes) {
-            out.write(clazz.methodMap().getBytes(StandardCharsets.UTF_8));
+        if (!expected.equals(actual)) {
+            throw new IllegalArgumentException("Invalid mapping hash! Cannot use this mapping file for this specific jar due to fear of corruption!\n" +
+                                               "   File " + expected + "\n" +
+                                               "Mapping " + actual + "\n");
         }
+        return true;
     }
 
-    public static String translateClass(List<ClassMapping> classes, String className) {
-        val formatted = className.replace('/', '.');
-        for (val clazz: classes) {
-            if (clazz.originalName.equals(formatted)) {
-                return clazz.targetName.replace('.', '/');
+    public static void mapSignatures(MappingSet mappings) {
+        mappings.sort();
+        val remapper = new SignatureRemapper(mappings);
+        val signatures = new HashMap<String, String>();
+        for (val clazz : mappings.getClasses()) {
+            for (val method : clazz.methods) {
+                method.mappedSignature = signatures.computeIfAbsent(method.signature, remapper::remapDescriptor);
+            }
+            for (val field: clazz.fields) {
+                field.mappedSignature = signatures.computeIfAbsent(field.signature, remapper::remapDescriptor);
             }
         }
-        return className;
+    }
+
+    public static void serializeClasses(MappingSet mappings, OutputStream out) throws IOException {
+        val writer = new MappingWriter(out);
+        writer.write(mappings);
+        writer.flush();
     }
 }
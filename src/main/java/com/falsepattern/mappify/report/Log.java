@@ -0,0 +1,67 @@
+package com.falsepattern.mappify.report;
+
+import java.io.PrintStream;
+import java.util.Locale;
+import java.util.function.Supplier;
+
+public class Log {
+    public enum Level {
+        ERROR, WARN, INFO, DEBUG
+    }
+
+    private static volatile Level level = Level.INFO;
+    private static volatile PrintStream output = System.out;
+
+    public static Level getLevel() {
+        return level;
+    }
+
+    public static void setLevel(Level level) {
+        Log.level = level;
+    }
+
+    public static void setLevel(String name) {
+        try {
+            setLevel(Level.valueOf(name.toUpperCase(Locale.ROOT)));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown log level: " + name);
+        }
+    }
+
+    public static void setOutput(PrintStream output) {
+        Log.output = output;
+    }
+
+    public static boolean isEnabled(Level level) {
+        return level.ordinal() <= Log.level.ordinal();
+    }
+
+    public static void error(String message) {
+        log(Level.ERROR, message);
+    }
+
+    public static void warn(String message) {
+        log(Level.WARN, message);
+    }
+
+    public static void info(String message) {
+        log(Level.INFO, message);
+    }
+
+    public static void debug(Supplier<String> message) {
+        if (isEnabled(Level.DEBUG)) {
+            log(Level.DEBUG, message.get());
+        }
+    }
+
+    private static void log(Level level, String message) {
+        if (!isEnabled(level)) {
+            return;
+        }
+        if (level.ordinal() <= Level.WARN.ordinal()) {
+            System.err.println(message);
+        } else {
+            output.println(message);
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.falsepattern.mappify.report;
+
+import lombok.Getter;
+import lombok.SneakyThrows;
+import lombok.val;
+import lombok.var;
+
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class Metrics implements MetricsMXBean {
+    @Getter
+    private final String command;
+    private final long start = System.nanoTime();
+    private final ConcurrentMap<String, AtomicLong> phases = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, AtomicLong> counters = new ConcurrentHashMap<>();
+    private ObjectName registeredName;
+
+    public Metrics(String command) {
+        this.command = command;
+    }
+
+    public Phase phase(String name) {
+        return new Phase(phases.computeIfAbsent(name, (key) -> new AtomicLong()));
+    }
+
+    public void add(String counter, long delta) {
+        counters.computeIfAbsent(counter, (key) -> new AtomicLong()).addAndGet(delta);
+    }
+
+    public void max(String counter, long value) {
+        counters.computeIfAbsent(counter, (key) -> new AtomicLong()).accumulateAndGet(value, Math::max);
+    }
+
+    @Override
+    public Map<String, Long> getPhaseNanos() {
+        return snapshot(phases);
+    }
+
+    @Override
+    public Map<String, Long> getCounters() {
+        return snapshot(counters);
+    }
+
+    private static Map<String, Long> snapshot(Map<String, AtomicLong> values) {
+        val result = new LinkedHashMap<String, Long>();
+        values.keySet().stream().sorted().forEach((key) -> result.put(key, values.get(key).get()));
+        return Collections.unmodifiableMap(result);
+    }
+
+    @SneakyThrows
+    public void registerMBean() {
+        val name = new ObjectName("com.falsepattern.mappify:type=Metrics,name=" + ObjectName.quote(command));
+        val server = ManagementFactory.getPlatformMBeanServer();
+        if (server.isRegistered(name)) {
+            server.unregisterMBean(name);
+        }
+        server.registerMBean(this, name);
+        registeredName = name;
+    }
+
+    @SneakyThrows
+    public void unregisterMBean() {
+        if (registeredName != null) {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(registeredName);
+            registeredName = null;
+        }
+    }
+
+    public void writeJson(Path file) throws IOException {
+        try (val output = Files.newOutputStream(file)) {
+            writeJson(output);
+        }
+    }
+
+    public void writeJson(OutputStream output) throws IOException {
+        val writer = new OutputStreamWriter(output, StandardCharsets.UTF_8);
+        writer.write("{\n  \"command\": ");
+        writeString(writer, command);
+        writer.write(",\n  \"totalMillis\": ");
+        writer.write(millis(System.nanoTime() - start));
+        writer.write(",\n  \"phaseMillis\": {");
+        var first = true;
+        for (val phase: getPhaseNanos().entrySet()) {
+            writer.write(first ? "\n    " : ",\n    ");
+            writeString(writer, phase.getKey());
+            writer.write(": ");
+            writer.write(millis(phase.getValue()));
+            first = false;
+        }
+        writer.write("\n  },\n  \"counters\": {");
+        first = true;
+        for (val counter: getCounters().entrySet()) {
+            writer.write(first ? "\n    " : ",\n    ");
+            writeString(writer, counter.getKey());
+            writer.write(": ");
+            writer.write(Long.toString(counter.getValue()));
+            first = false;
+        }
+        writer.write("\n  }\n}\n");
+        writer.flush();
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / 1e6);
+    }
+
+    private static void writeString(Writer writer, String value) throws IOException {
+        writer.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            val c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                writer.write('\\');
+                writer.write(c);
+            } else if (c < 0x20) {
+                writer.write(String.format("\\u%04x", (int) c));
+            } else {
+                writer.write(c);
+            }
+        }
+        writer.write('"');
+    }
+
+    public static class Phase implements AutoCloseable {
+        private final AtomicLong total;
+        private final long start = System.nanoTime();
+
+        private Phase(AtomicLong total) {
+            this.total = total;
+        }
+
+        @Override
+        public void close() {
+            total.addAndGet(System.nanoTime() - start);
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.falsepattern.mappify.report;
+
+import java.util.Map;
+
+public interface MetricsMXBean {
+    String getCommand();
+
+    Map<String, Long> getPhaseNanos();
+
+    Map<String, Long> getCounters();
+}
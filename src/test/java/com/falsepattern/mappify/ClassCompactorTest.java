@@ -0,0 +1,100 @@
+package com.falsepattern.mappify;
+
+import lombok.Cleanup;
+import lombok.val;
+import org.apache.bcel.Const;
+import org.apache.bcel.classfile.ClassParser;
+import org.apache.bcel.classfile.Utility;
+import org.apache.commons.compress.archivers.zip.ZipFile;
+import org.apache.commons.compress.utils.IOUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ClassCompactorTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void compactedClassesMatchTheRemappedClasses() throws Exception {
+        val jar = Paths.get(Const.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+        val remapper = Remapper.load(dump(jar));
+        @Cleanup val zip = new ZipFile(jar.toFile());
+        int classes = 0;
+        int compacted = 0;
+        for (val entry: Collections.list(zip.getEntries())) {
+            if (!entry.getName().endsWith(".class")) {
+                continue;
+            }
+            @Cleanup val input = zip.getInputStream(entry);
+            val remapped = remapper.remapClass(IOUtils.toByteArray(input));
+            val result = ClassCompactor.compact(remapped);
+            if (result.length < remapped.length) {
+                compacted++;
+            }
+            assertEquals(entry.getName(), describe(remapped), describe(result));
+            assertArrayEquals(entry.getName(), result, ClassCompactor.compact(result));
+            classes++;
+        }
+        assertTrue(classes > 0);
+        assertTrue(compacted > classes / 2);
+    }
+
+    @Test
+    public void unchangedClassesAreReturnedAsIs() throws Exception {
+        val jar = Paths.get(Const.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+        @Cleanup val zip = new ZipFile(jar.toFile());
+        @Cleanup val input = zip.getInputStream(zip.getEntry("org/apache/bcel/Const.class"));
+        val bytes = IOUtils.toByteArray(input);
+        assertArrayEquals(bytes, ClassCompactor.compact(bytes));
+        val truncated = Arrays.copyOf(bytes, bytes.length - 1);
+        assertArrayEquals(truncated, ClassCompactor.compact(truncated));
+    }
+
+    private Path dump(Path jar) {
+        val mapfile = folder.getRoot().toPath().resolve("map.txt");
+        Main.main(new String[]{"dump", jar.toString(), mapfile.toString()});
+        return mapfile;
+    }
+
+    private static String describe(byte[] bytes) throws IOException {
+        val clazz = new ClassParser(new ByteArrayInputStream(bytes), "class").parse();
+        val pool = clazz.getConstantPool();
+        val result = new StringBuilder();
+        result.append(clazz.getAccessFlags()).append(' ').append(clazz.getClassName()).append(' ')
+              .append(clazz.getSuperclassName()).append(' ').append(Arrays.toString(clazz.getInterfaceNames())).append('\n');
+        for (val field: clazz.getFields()) {
+            result.append(field).append('\n');
+        }
+        for (val method: clazz.getMethods()) {
+            result.append(method).append('\n');
+            val code = method.getCode();
+            if (code == null) {
+                continue;
+            }
+            result.append(code.getMaxStack()).append(' ').append(code.getMaxLocals()).append('\n');
+            result.append(Utility.codeToString(code.getCode(), pool, 0, -1, false));
+            for (val exception: code.getExceptionTable()) {
+                result.append(exception.toString(pool, false)).append('\n');
+            }
+            for (val attribute: code.getAttributes()) {
+                result.append(attribute).append('\n');
+            }
+        }
+        for (val attribute: clazz.getAttributes()) {
+            result.append(attribute).append('\n');
+        }
+        return result.toString();
+    }
+}
@@ -0,0 +1,68 @@
+package com.falsepattern.mappify;
+
+import lombok.Cleanup;
+import lombok.val;
+import org.apache.bcel.Const;
+import org.apache.bcel.generic.ClassGen;
+import org.apache.bcel.generic.InstructionConst;
+import org.apache.bcel.generic.InstructionList;
+import org.apache.bcel.generic.MethodGen;
+import org.apache.bcel.generic.Type;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.Assert.assertEquals;
+
+public class IncrementalDumpTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void incrementalDumpMatchesFullDump() throws IOException {
+        val jar = folder.getRoot().toPath().resolve("input.jar");
+        @Cleanup val output = new ZipOutputStream(Files.newOutputStream(jar));
+        writeClass(output, "p.A", "java.lang.Object");
+        writeClass(output, "p.B", "p.A");
+        writeClass(output, "p.C", "p.B");
+        output.close();
+
+        val full = folder.getRoot().toPath().resolve("full.txt");
+        val incremental = folder.getRoot().toPath().resolve("incremental.txt");
+        Main.main(new String[]{"dump", "--names=counter", jar.toString(), full.toString()});
+        Main.main(new String[]{"--names=counter", "--previous=" + full, "dump", jar.toString(), incremental.toString()});
+        assertEquals(read(full), read(incremental));
+    }
+
+    private static void writeClass(ZipOutputStream output, String name, String superName) throws IOException {
+        val clazz = new ClassGen(name, superName, "", Const.ACC_PUBLIC | Const.ACC_SUPER, null);
+        clazz.addEmptyConstructor(Const.ACC_PUBLIC);
+        addMethod(clazz, Const.ACC_PRIVATE, "a");
+        addMethod(clazz, Const.ACC_STATIC, "b");
+        addMethod(clazz, Const.ACC_PRIVATE | Const.ACC_STATIC, "c");
+        addMethod(clazz, Const.ACC_PUBLIC, "d");
+        output.putNextEntry(new ZipEntry(name.replace('.', '/') + ".class"));
+        output.write(clazz.getJavaClass().getBytes());
+        output.closeEntry();
+    }
+
+    private static void addMethod(ClassGen clazz, int access, String name) {
+        val code = new InstructionList(InstructionConst.RETURN);
+        val method = new MethodGen(access, Type.VOID, Type.NO_ARGS, null, name, clazz.getClassName(), code, clazz.getConstantPool());
+        method.setMaxStack();
+        method.setMaxLocals();
+        clazz.addMethod(method.getMethod());
+        code.dispose();
+    }
+
+    private static String read(Path file) throws IOException {
+        return new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+    }
+}
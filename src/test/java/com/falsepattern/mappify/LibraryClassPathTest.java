@@ -0,0 +1,25 @@
+package com.falsepattern.mappify;
+
+import lombok.Cleanup;
+import lombok.val;
+import org.junit.Test;
+
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+
+public class LibraryClassPathTest {
+    @Test
+    public void evictsLeastRecentlyUsedClasses() throws Exception {
+        @Cleanup val classPath = new LibraryClassPath(Collections.emptyList(), true, 2);
+        assertEquals("java.lang.Object", classPath.getClassInfo("java.lang.Object").name);
+        classPath.getClassInfo("java.lang.String");
+        classPath.getClassInfo("java.lang.Object");
+        classPath.getClassInfo("java.lang.Integer");
+        assertEquals(3, classPath.getLoadedCount());
+        classPath.getClassInfo("java.lang.Object");
+        assertEquals(3, classPath.getLoadedCount());
+        classPath.getClassInfo("java.lang.String");
+        assertEquals(4, classPath.getLoadedCount());
+    }
+}
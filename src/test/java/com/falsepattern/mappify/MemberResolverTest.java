@@ -0,0 +1,70 @@
+package com.falsepattern.mappify;
+
+import com.falsepattern.mappify.mapping.BinaryMappings;
+import com.falsepattern.mappify.mapping.ClassInfo;
+import com.falsepattern.mappify.mapping.MappingReader;
+import com.falsepattern.mappify.mapping.MappingSet;
+import com.falsepattern.mappify.mapping.MappingWriter;
+import com.falsepattern.mappify.mapping.Util;
+import lombok.val;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class MemberResolverTest {
+    private static final String MAPPINGS = "CL: p.Base p.A\n" +
+                                           "FD: p.Base.secret I p.A.f I 2\n" +
+                                           "FD: p.Base.shared I p.A.g I 4\n" +
+                                           "MD: p.Base.hidden ()V p.A.m ()V 2\n" +
+                                           "MD: p.Base.visible ()V p.A.n ()V 1\n";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void privateMembersAreNotInheritedFromTextMapfiles() throws IOException {
+        assertInheritance(new MappingReader(new ByteArrayInputStream(MAPPINGS.getBytes(StandardCharsets.UTF_8))).read(null));
+    }
+
+    @Test
+    public void privateMembersAreNotInheritedFromBinaryMapfiles() throws IOException {
+        val mappings = new MappingReader(new ByteArrayInputStream(MAPPINGS.getBytes(StandardCharsets.UTF_8))).read(null);
+        val file = folder.getRoot().toPath().resolve("map.bin");
+        try (val output = Files.newOutputStream(file)) {
+            BinaryMappings.write(mappings, null, output);
+        }
+        assertInheritance(Util.parseClasses(file, null));
+    }
+
+    @Test
+    public void accessFlagsSurviveTextRoundTripAndInversion() throws IOException {
+        val mappings = new MappingReader(new ByteArrayInputStream(MAPPINGS.getBytes(StandardCharsets.UTF_8))).read(null);
+        val file = folder.getRoot().toPath().resolve("map.txt");
+        try (val writer = new MappingWriter(Files.newOutputStream(file))) {
+            writer.write(mappings);
+        }
+        assertEquals(MAPPINGS, new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+        val inverse = mappings.invert();
+        assertEquals(2, inverse.getByOriginalName("p.A").getMethod("m", "()V").getAccess());
+        assertEquals(2, mappings.compose(inverse).getByOriginalName("p.Base").getField("secret", "I").getAccess());
+    }
+
+    private static void assertInheritance(MappingSet mappings) {
+        val child = new ClassInfo("q.Child", "p.Base", new String[0], Collections.emptySet());
+        val resolver = MemberResolver.create(mappings).withClasses((name) -> name.equals("q.Child") ? child : null);
+        assertNull(resolver.resolve("q.Child", true, "hidden", "()V"));
+        assertNull(resolver.resolve("q.Child", false, "secret", "I"));
+        assertEquals("n", resolver.resolve("q.Child", true, "visible", "()V").getTargetName());
+        assertEquals("g", resolver.resolve("q.Child", false, "shared", "I").getTargetName());
+        assertEquals("m", resolver.resolve("p.Base", true, "hidden", "()V").getTargetName());
+    }
+}
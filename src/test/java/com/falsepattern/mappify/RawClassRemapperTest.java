@@ -0,0 +1,48 @@
+package com.falsepattern.mappify;
+
+import com.falsepattern.mappify.mapping.ClassInfoProvider;
+import com.falsepattern.mappify.mapping.Util;
+import com.falsepattern.mappify.report.Metrics;
+import lombok.val;
+import org.apache.bcel.Const;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+
+import static org.junit.Assert.assertArrayEquals;
+
+public class RawClassRemapperTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void enginesWriteIdenticalJars() throws Exception {
+        convertWithBothEngines(false);
+    }
+
+    @Test
+    public void enginesWriteIdenticalCompactedJars() throws Exception {
+        convertWithBothEngines(true);
+    }
+
+    private void convertWithBothEngines(boolean compact) throws Exception {
+        val jar = Paths.get(Const.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+        val mapfile = folder.getRoot().toPath().resolve("map.txt");
+        Main.main(new String[]{"dump", jar.toString(), mapfile.toString()});
+        val mappings = Util.parseClasses(mapfile, null);
+        val bcel = convert(new Remapper(mappings, compact, Collections.emptyList(), ClassInfoProvider.NONE, false), jar, "bcel.jar");
+        val raw = convert(new Remapper(mappings, compact, Collections.emptyList(), ClassInfoProvider.NONE, true), jar, "raw.jar");
+        assertArrayEquals(Files.readAllBytes(bcel), Files.readAllBytes(raw));
+    }
+
+    private Path convert(Remapper remapper, Path jar, String name) throws Exception {
+        val output = folder.getRoot().toPath().resolve(name);
+        remapper.remapJar(jar, output, null, null, new Metrics("test"));
+        return output;
+    }
+}
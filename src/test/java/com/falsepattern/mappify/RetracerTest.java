@@ -0,0 +1,66 @@
+package com.falsepattern.mappify;
+
+import com.falsepattern.mappify.mapping.MappingReader;
+import lombok.val;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+
+public class RetracerTest {
+    private static final String MAPPINGS = "CL: com.example.Service a.B\n" +
+                                           "CL: com.example.Service$Worker a.B$C\n" +
+                                           "FD: com.example.Service.counter I a.B.d I\n" +
+                                           "MD: com.example.Service.process (Ljava/lang/String;)V a.B.e (Ljava/lang/String;)V\n" +
+                                           "MD: com.example.Service.start ()V a.B.g ()V\n" +
+                                           "MD: com.example.Service$Worker.run ()V a.B$C.f ()V\n" +
+                                           "MD: com.example.Service$Worker.stop ()V a.B$C.g ()V\n";
+
+    private final Retracer retracer = retracer();
+
+    private static Retracer retracer() {
+        try {
+            return new Retracer(new MappingReader(new ByteArrayInputStream(MAPPINGS.getBytes(StandardCharsets.UTF_8))).read(null));
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    @Test
+    public void retracesStackTraceLines() {
+        assertEquals("java.lang.IllegalStateException: bad com.example.Service.counter",
+                     retracer.retrace("java.lang.IllegalStateException: bad a.B.d"));
+        assertEquals("\tat com.example.Service.process(Service.java:42)",
+                     retracer.retrace("\tat a.B.e(B.java:42)"));
+        assertEquals("\tat com.example.Service$Worker.run(Unknown Source)",
+                     retracer.retrace("\tat a.B$C.f(Unknown Source)"));
+        assertEquals("\tat com.example.Service$Worker.stop(Service.java:7)",
+                     retracer.retrace("\tat a.B$C.g(B.java:7)"));
+        assertEquals("Caused by: java.lang.NullPointerException: Cannot read field \"counter\" because \"com/example/Service\" is null",
+                     retracer.retrace("Caused by: java.lang.NullPointerException: Cannot read field \"d\" because \"a/B\" is null"));
+    }
+
+    @Test
+    public void leavesUnmappedAndAmbiguousNamesAlone() {
+        val lines = new String[]{"\tat java.lang.Thread.run(Thread.java:750)",
+                                 "\tat a.Bx.q(Bx.java:1)",
+                                 "method g was called",
+                                 "",
+                                 "... 3 more"};
+        for (val line: lines) {
+            assertEquals(line, retracer.retrace(line));
+        }
+    }
+
+    @Test
+    public void retracesStreams() throws IOException {
+        val output = new ByteArrayOutputStream();
+        retracer.retrace(new ByteArrayInputStream("\tat a.B.e(B.java:1)\n\tat a.B$C.f(B.java:2)\n".getBytes(StandardCharsets.UTF_8)), output);
+        assertEquals("\tat com.example.Service.process(Service.java:1)\n\tat com.example.Service$Worker.run(Service.java:2)\n",
+                     new String(output.toByteArray(), StandardCharsets.UTF_8));
+    }
+}
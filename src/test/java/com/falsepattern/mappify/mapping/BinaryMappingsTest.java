@@ -0,0 +1,98 @@
+package com.falsepattern.mappify.mapping;
+
+import lombok.val;
+import org.apache.bcel.Const;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class BinaryMappingsTest {
+    private static final String HASH = "HASH: 0123456789abcdef";
+    private static final String TEXT = HASH + "\n" +
+                                       "CL: a.Foo x.Bar\n" +
+                                       "CL: a.Foo$Inner x.Bar$In\n" +
+                                       "CL: b.Plain b.Plain\n" +
+                                       "CRC: a.Foo 89abcdef\n" +
+                                       "CRC: b.Plain 0\n" +
+                                       "DIGEST: a.Foo 00112233445566778899aabbccddeeff\n" +
+                                       "DIGEST: a.Foo$Inner ffeeddccbbaa99887766554433221100\n" +
+                                       "FD: a.Foo.value La/Foo$Inner; x.Bar.f Lx/Bar$In; 14\n" +
+                                       "FD: a.Foo$Inner.ünï I x.Bar$In.g I 0\n" +
+                                       "MD: a.Foo.run (La/Foo;[J)V x.Bar.m (Lx/Bar;[J)V a\n" +
+                                       "MD: b.Plain.get ()Ljava/util/List; b.Plain.get ()Ljava/util/List; 1\n";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void textSurvivesBinaryRoundTrip() throws IOException {
+        val original = new MappingReader(new ByteArrayInputStream(TEXT.getBytes(StandardCharsets.UTF_8))).read(HASH);
+        val binary = new ByteArrayOutputStream();
+        BinaryMappings.write(original, original.getHash(), binary);
+        val file = folder.getRoot().toPath().resolve("map.bin");
+        Files.write(file, binary.toByteArray());
+        assertTrue(BinaryMappings.isBinary(file));
+
+        val fromFile = Util.parseClasses(file, HASH);
+        val fromStream = Util.parseClasses(new ByteArrayInputStream(binary.toByteArray()), HASH);
+        assertEquals(HASH, fromFile.getHash());
+        assertEquals(HASH, fromStream.getHash());
+        assertEquals(TEXT, text(fromFile));
+        assertEquals(TEXT, text(fromStream));
+        assertEquals(0x89abcdefL, fromFile.getByOriginalName("a.Foo").getCrc());
+        assertEquals(0L, fromFile.getByOriginalName("b.Plain").getCrc());
+        assertEquals(-1L, fromFile.getByOriginalName("a.Foo$Inner").getCrc());
+        assertEquals("00112233445566778899aabbccddeeff", fromFile.getByOriginalName("a.Foo").getDigest());
+        assertEquals(null, fromFile.getByOriginalName("b.Plain").getDigest());
+    }
+
+    @Test
+    public void accessFlagsSurviveBinaryRoundTrip() throws IOException {
+        val original = new MappingReader(new ByteArrayInputStream(TEXT.getBytes(StandardCharsets.UTF_8))).read(HASH);
+        original.getByOriginalName("a.Foo").getMethod("run", "(La/Foo;[J)V").setAccess(Const.ACC_PRIVATE | Const.ACC_STATIC);
+        original.getByOriginalName("a.Foo").getField("value", "La/Foo$Inner;").setAccess(Const.ACC_PROTECTED | Const.ACC_FINAL);
+        val binary = new ByteArrayOutputStream();
+        BinaryMappings.write(original, original.getHash(), binary);
+        val read = BinaryMappings.read(ByteBuffer.wrap(binary.toByteArray()), HASH);
+        assertEquals(Const.ACC_PRIVATE | Const.ACC_STATIC, read.getByOriginalName("a.Foo").getMethod("run", "(La/Foo;[J)V").getAccess());
+        assertEquals(Const.ACC_PROTECTED | Const.ACC_FINAL, read.getByOriginalName("a.Foo").getField("value", "La/Foo$Inner;").getAccess());
+        assertEquals(Const.ACC_PUBLIC, read.getByOriginalName("b.Plain").getMethod("get", "()Ljava/util/List;").getAccess());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void olderVersionsAreRejected() throws IOException {
+        val original = new MappingReader(new ByteArrayInputStream(TEXT.getBytes(StandardCharsets.UTF_8))).read(HASH);
+        val binary = new ByteArrayOutputStream();
+        BinaryMappings.write(original, original.getHash(), binary);
+        val buffer = ByteBuffer.wrap(binary.toByteArray());
+        buffer.putInt(4, BinaryMappings.VERSION - 1);
+        BinaryMappings.read(buffer, HASH);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void mismatchedHashIsRejected() throws IOException {
+        val original = new MappingReader(new ByteArrayInputStream(TEXT.getBytes(StandardCharsets.UTF_8))).read(HASH);
+        val binary = new ByteArrayOutputStream();
+        BinaryMappings.write(original, original.getHash(), binary);
+        Util.parseClasses(new ByteArrayInputStream(binary.toByteArray()), "HASH: fedcba9876543210");
+    }
+
+    private static String text(MappingSet mappings) throws IOException {
+        val output = new ByteArrayOutputStream();
+        val writer = new MappingWriter(output);
+        writer.writeHash(mappings.getHash());
+        writer.write(mappings);
+        writer.flush();
+        return new String(output.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
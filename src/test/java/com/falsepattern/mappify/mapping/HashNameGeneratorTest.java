@@ -0,0 +1,65 @@
+package com.falsepattern.mappify.mapping;
+
+import com.falsepattern.mappify.Main;
+import lombok.val;
+import org.apache.bcel.Const;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+public class HashNameGeneratorTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void namesDependOnlyOnTheMember() {
+        val first = new HashNameGenerator();
+        val second = new HashNameGenerator();
+        val keys = new ArrayList<String[]>();
+        for (int i = 0; i < 10000; i++) {
+            keys.add(new String[]{"pkg.Owner" + (i % 100), "m" + i, i % 2 == 0 ? "()V" : "(I)I"});
+        }
+        val names = new HashMap<String, String>();
+        for (val key: keys) {
+            names.put(String.join(" ", key), first.nextID(key[0], key[1], key[2]));
+        }
+        assertEquals(keys.size(), new HashSet<>(names.values()).size());
+        for (int i = keys.size() - 1; i >= 0; i--) {
+            val key = keys.get(i);
+            assertEquals(names.get(String.join(" ", key)), second.nextID(key[0], key[1], key[2]));
+        }
+    }
+
+    @Test
+    public void reservedIDsAreSkipped() {
+        val id = new HashNameGenerator().nextID("pkg.Owner", "a", "()V");
+        val names = new HashNameGenerator();
+        names.reserve(Long.parseLong(id));
+        assertNotEquals(id, names.nextID("pkg.Owner", "a", "()V"));
+    }
+
+    @Test
+    public void dumpsMatchAcrossRunsAndThreadCounts() throws Exception {
+        val jar = Paths.get(Const.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+        val expected = dump(jar, 1, "single.txt");
+        assertArrayEquals(expected, dump(jar, 1, "again.txt"));
+        assertArrayEquals(expected, dump(jar, 4, "parallel.txt"));
+    }
+
+    private byte[] dump(Path jar, int threads, String name) throws Exception {
+        val mapfile = folder.getRoot().toPath().resolve(name);
+        Main.main(new String[]{"dump", "--names=hash", "--threads=" + threads, jar.toString(), mapfile.toString()});
+        return Files.readAllBytes(mapfile);
+    }
+}
@@ -0,0 +1,93 @@
+package com.falsepattern.mappify.mapping;
+
+import lombok.val;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+public class MappingSetTest {
+    private static final String FIRST = "CL: a.Foo b.Bar\n" +
+                                        "CL: a.Foo$Inner b.Bar$In\n" +
+                                        "CL: a.Other b.Other\n" +
+                                        "FD: a.Foo.value La/Foo$Inner; b.Bar.f Lb/Bar$In;\n" +
+                                        "FD: a.Other.list Ljava/util/List; b.Other.list Ljava/util/List;\n" +
+                                        "MD: a.Foo.run (La/Foo;[La/Other;)La/Foo$Inner; b.Bar.m (Lb/Bar;[Lb/Other;)Lb/Bar$In;\n" +
+                                        "MD: a.Foo$Inner.get ()V b.Bar$In.g ()V\n";
+    private static final String SECOND = "CL: b.Bar c.Baz\n" +
+                                         "CL: b.Bar$In c.Baz$I\n" +
+                                         "CL: b.Extra c.Extra\n" +
+                                         "FD: b.Bar.f Lb/Bar$In; c.Baz.x Lc/Baz$I;\n" +
+                                         "MD: b.Bar.m (Lb/Bar;[Lb/Other;)Lb/Bar$In; c.Baz.y (Lc/Baz;[Lb/Other;)Lc/Baz$I;\n" +
+                                         "MD: b.Extra.e (Lb/Bar;)V c.Extra.z (Lc/Baz;)V\n";
+
+    @Test
+    public void composingWithTheInverseIsTheIdentity() throws IOException {
+        val mappings = parse(FIRST);
+        val identity = mappings.compose(mappings.invert());
+        assertEquals(mappings.size(), identity.size());
+        for (val clazz: mappings.getClasses()) {
+            val composed = identity.getByOriginalName(clazz.originalName);
+            assertNotNull(clazz.originalName, composed);
+            assertEquals(clazz.originalName, composed.targetName);
+            assertEquals(clazz.fields.size(), composed.fields.size());
+            assertEquals(clazz.methods.size(), composed.methods.size());
+            for (val member: composed.fields) {
+                assertIdentity(member);
+            }
+            for (val member: composed.methods) {
+                assertIdentity(member);
+            }
+        }
+    }
+
+    @Test
+    public void invertingTwiceRestoresTheMappings() throws IOException {
+        val mappings = parse(FIRST);
+        assertEquals(text(mappings), text(mappings.invert().invert()));
+    }
+
+    @Test
+    public void composeTranslatesMemberSignatures() throws IOException {
+        val composed = parse(FIRST).compose(parse(SECOND));
+        assertEquals("c.Baz", composed.getByOriginalName("a.Foo").targetName);
+        assertEquals("c.Baz$I", composed.getByOriginalName("a.Foo$Inner").targetName);
+        assertEquals("b.Other", composed.getByOriginalName("a.Other").targetName);
+
+        val run = composed.getByOriginalName("a.Foo").getMethod("run", "(La/Foo;[La/Other;)La/Foo$Inner;");
+        assertEquals("y", run.getTargetName());
+        assertEquals("(Lc/Baz;[Lb/Other;)Lc/Baz$I;", run.getMappedSignature());
+        val value = composed.getByOriginalName("a.Foo").getField("value", "La/Foo$Inner;");
+        assertEquals("x", value.getTargetName());
+        assertEquals("Lc/Baz$I;", value.getMappedSignature());
+        val get = composed.getByOriginalName("a.Foo$Inner").getMethod("get", "()V");
+        assertEquals("g", get.getTargetName());
+
+        val extra = composed.getByOriginalName("b.Extra").getMethod("e", "(La/Foo;)V");
+        assertNotNull(extra);
+        assertEquals("z", extra.getTargetName());
+        assertEquals("(Lc/Baz;)V", extra.getMappedSignature());
+    }
+
+    private static void assertIdentity(MemberMapping member) {
+        assertEquals(member.toString(), member.originalName, member.getTargetName());
+        assertEquals(member.toString(), member.signature, member.getMappedSignature());
+    }
+
+    private static MappingSet parse(String text) throws IOException {
+        return new MappingReader(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8))).read(null);
+    }
+
+    private static String text(MappingSet mappings) {
+        val result = new StringBuilder();
+        mappings.sort();
+        for (val clazz: mappings.getClasses()) {
+            result.append(clazz);
+        }
+        return result.toString();
+    }
+}
@@ -0,0 +1,39 @@
+package com.falsepattern.mappify.mapping;
+
+import lombok.val;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+
+public class MappingWriterTest {
+    @Test
+    public void writesNamesLongerThanTheBuffer() throws IOException {
+        val ascii = name('a', 100000);
+        val wide = name('é', 40000);
+        val mappings = new MappingSet();
+        mappings.add(ClassMapping.deserialize("p." + ascii, "q." + wide));
+        mappings.add(ClassMapping.deserialize("p.Small", "q.S"));
+        MemberMapping.deserialize(mappings.getByOriginalName("p.Small"), true, wide, "()V", ascii, "()V");
+
+        val output = new ByteArrayOutputStream();
+        val writer = new MappingWriter(output);
+        writer.write(mappings);
+        writer.flush();
+
+        val read = new MappingReader(new ByteArrayInputStream(output.toByteArray())).read(null);
+        assertEquals("q." + wide, read.getByOriginalName("p." + ascii).targetName);
+        assertEquals("q.S", read.getByOriginalName("p.Small").targetName);
+        assertEquals(ascii, read.getByOriginalName("p.Small").getMethod(wide, "()V").getTargetName());
+    }
+
+    private static String name(char c, int length) {
+        val chars = new char[length];
+        Arrays.fill(chars, c);
+        return new String(chars);
+    }
+}
@@ -0,0 +1,61 @@
+package com.falsepattern.mappify.mapping;
+
+import lombok.val;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class SignatureRemapperTest {
+    private final SignatureRemapper remapper = new SignatureRemapper(mappings());
+
+    private static MappingSet mappings() {
+        val mappings = new MappingSet();
+        mappings.add(ClassMapping.deserialize("a.Foo", "x.Bar"));
+        mappings.add(ClassMapping.deserialize("a.Outer", "x.O"));
+        mappings.add(ClassMapping.deserialize("a.Outer$Inner", "x.O$I"));
+        mappings.add(ClassMapping.deserialize("a.Outer$Inner$Deep", "x.O$I$D"));
+        return mappings;
+    }
+
+    @Test
+    public void classNames() {
+        assertEquals("x.Bar", remapper.remap("a.Foo"));
+        assertEquals("x/Bar", remapper.remap("a/Foo"));
+        assertEquals("x/O$I", remapper.remap("a/Outer$Inner"));
+    }
+
+    @Test
+    public void objectTypes() {
+        assertEquals("Lx/Bar;", remapper.remap("La/Foo;"));
+        assertEquals("[[Lx/Bar;", remapper.remap("[[La/Foo;"));
+        assertEquals("(Lx/Bar;I[Lx/O$I;)Lx/O;", remapper.remap("(La/Foo;I[La/Outer$Inner;)La/Outer;"));
+    }
+
+    @Test
+    public void genericArguments() {
+        assertEquals("Ljava/util/List<Lx/Bar;>;", remapper.remap("Ljava/util/List<La/Foo;>;"));
+        assertEquals("Ljava/util/Map<Lx/Bar;Ljava/util/List<Lx/O;>;>;", remapper.remap("Ljava/util/Map<La/Foo;Ljava/util/List<La/Outer;>;>;"));
+        assertEquals("<T:Lx/Bar;>(TT;)Lx/O;", remapper.remap("<T:La/Foo;>(TT;)La/Outer;"));
+    }
+
+    @Test
+    public void wildcards() {
+        assertEquals("Ljava/util/Map<+Lx/Bar;-Lx/O;>;", remapper.remap("Ljava/util/Map<+La/Foo;-La/Outer;>;"));
+        assertEquals("Ljava/util/List<*>;", remapper.remap("Ljava/util/List<*>;"));
+    }
+
+    @Test
+    public void innerClassesAfterTypeArguments() {
+        assertEquals("Lx/O<Lx/Bar;>.I;", remapper.remap("La/Outer<La/Foo;>.Inner;"));
+        assertEquals("Lx/O<Lx/Bar;>.I<Lx/Bar;>.D;", remapper.remap("La/Outer<La/Foo;>.Inner<La/Foo;>.Deep;"));
+        assertEquals("Lx/O<Lx/Bar;>.Missing;", remapper.remap("La/Outer<La/Foo;>.Missing;"));
+    }
+
+    @Test
+    public void unmappedValuesPassThrough() {
+        for (val value: new String[]{"Ljava/lang/String;", "(IJ[B)V", "La/Foox;", "Ljava/util/List<La/Food;>;", "TL;", "hello world", ""}) {
+            assertSame(value, remapper.remap(value));
+        }
+    }
+}